@@ -0,0 +1,121 @@
+package com.example.licenta.benchmarks;
+
+import com.example.licenta.Enum.ParkingLot.DayOfWeek;
+import com.example.licenta.Enum.ParkingLot.ParkingLotCategory;
+import com.example.licenta.Enum.ParkingLot.ParkingLotSize;
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Enum.ParkingLot.ParkingLotType;
+import com.example.licenta.Enum.ParkingLot.PricingType;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Models.PriceInterval;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Synthetic datasets and repository stubs shared by the benchmarks. Everything is seeded so runs
+ * are comparable across commits.
+ */
+final class BenchmarkFixtures {
+
+    // Lots are spread over roughly 40 x 30 km around Cluj-Napoca
+    static final double CENTER_LATITUDE = 46.77;
+    static final double CENTER_LONGITUDE = 23.59;
+    static final double SPREAD_DEGREES = 0.2;
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<ParkingLot> parkingLots(int count, int intervalsPerDay, long seed) {
+        Random random = new Random(seed);
+        List<ParkingLot> lots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ParkingLot lot = new ParkingLot();
+            lot.setId("lot-" + i);
+            lot.setName("Parking " + i);
+            lot.setAddress("Strada Benchmark " + random.nextInt(500) + ", Cluj-Napoca");
+            lot.setGpsCoordinates(String.format("%.6f,%.6f",
+                    CENTER_LATITUDE + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+                    CENTER_LONGITUDE + (random.nextDouble() - 0.5) * SPREAD_DEGREES));
+            lot.setStatus(ParkingLotStatus.ACTIVE);
+            lot.setCategory(random.nextBoolean() ? ParkingLotCategory.PUBLIC : ParkingLotCategory.PRIVATE);
+            lot.setSize(ParkingLotSize.values()[random.nextInt(ParkingLotSize.values().length)]);
+            lot.getTypes().add(ParkingLotType.values()[random.nextInt(ParkingLotType.values().length)]);
+            lot.setTotalSpots(20 + random.nextInt(400));
+            lot.setSpotsAvailable(random.nextInt(lot.getTotalSpots() + 1));
+            lot.setEvChargingSpots(random.nextInt(4));
+            lot.setDisabilitySpots(random.nextInt(6));
+            lot.setLighted(random.nextBoolean());
+            lot.setHasVideoSurveillance(random.nextBoolean());
+            lot.getPhotos().addAll(List.of("uploads/" + i + "-a.jpg", "uploads/" + i + "-b.jpg"));
+            lot.setPricingType(PricingType.FIXED);
+            lot.setPriceIntervals(priceIntervals(intervalsPerDay, random));
+            lots.add(lot);
+        }
+        return lots;
+    }
+
+    /**
+     * Splits every day into the given number (at least 2) of equally long intervals with random
+     * prices, some billed per started duration unit and some pro rata. A single 00:00-00:00
+     * interval would not match any time of day.
+     */
+    static List<PriceInterval> priceIntervals(int intervalsPerDay, Random random) {
+        List<PriceInterval> intervals = new ArrayList<>();
+        int minutesPerInterval = 24 * 60 / intervalsPerDay;
+        for (int i = 0; i < intervalsPerDay; i++) {
+            int start = i * minutesPerInterval;
+            int end = (i + 1) * minutesPerInterval % (24 * 60);
+            PriceInterval interval = new PriceInterval();
+            interval.setStartTime(String.format("%02d:%02d", start / 60, start % 60));
+            interval.setEndTime(String.format("%02d:%02d", end / 60, end % 60));
+            interval.setDays(new ArrayList<>(Arrays.asList(DayOfWeek.values())));
+            interval.setPrice(1.0 + random.nextInt(10));
+            interval.setDuration(random.nextBoolean() ? 30 : null);
+            intervals.add(interval);
+        }
+        return intervals;
+    }
+
+    /**
+     * Query points inside the same area as the lots.
+     */
+    static double[][] queryPoints(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[count][];
+        for (int i = 0; i < count; i++) {
+            points[i] = new double[]{
+                    CENTER_LATITUDE + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+                    CENTER_LONGITUDE + (random.nextDouble() - 0.5) * SPREAD_DEGREES};
+        }
+        return points;
+    }
+
+    /**
+     * Implements a Spring Data repository interface with the given method bodies, keyed by method
+     * name. Any other call fails, so a benchmark cannot silently measure an unstubbed path.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stubRepository(Class<T> repositoryType, Map<String, Function<Object[], Object>> answers) {
+        Set<String> stubbed = answers.keySet();
+        return (T) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> repositoryType.getSimpleName() + " stub";
+                };
+            }
+            if (!stubbed.contains(method.getName())) {
+                throw new UnsupportedOperationException(method.getName() + " is not stubbed");
+            }
+            return answers.get(method.getName()).apply(args);
+        });
+    }
+}
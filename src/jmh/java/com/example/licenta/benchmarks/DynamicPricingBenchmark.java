@@ -0,0 +1,61 @@
+package com.example.licenta.benchmarks;
+
+import com.example.licenta.Config.PricingRulesProperties;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.example.licenta.Services.AvailabilityStore;
+import com.example.licenta.Services.FixedPricingStrategy;
+import com.example.licenta.Services.PriceScheduleCache;
+import com.example.licenta.Services.PricingStrategy;
+import com.example.licenta.Services.RuleBasedPricingStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The rule-based dynamic pricing strategy against the fixed one it builds on, for stays of
+ * different lengths, to keep dynamic quotes about as cheap as fixed ones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicPricingBenchmark {
+
+    @Param({"fixed", "rules"})
+    public String strategy;
+
+    @Param({"2", "24", "168"})
+    public int stayHours;
+
+    private PricingStrategy pricingStrategy;
+    private ParkingLot lot;
+    private OffsetDateTime start;
+    private OffsetDateTime end;
+
+    @Setup
+    public void setUp() {
+        lot = BenchmarkFixtures.parkingLots(1, 4, 5).get(0);
+        ParkingLotRepository repository = BenchmarkFixtures.stubRepository(ParkingLotRepository.class, Map.of(
+                "findById", args -> lot.getId().equals(args[0]) ? Optional.of(lot) : Optional.empty()));
+        PriceScheduleCache priceScheduleCache = new PriceScheduleCache(repository);
+        pricingStrategy = FixedPricingStrategy.NAME.equals(strategy)
+                ? new FixedPricingStrategy(priceScheduleCache)
+                : new RuleBasedPricingStrategy(priceScheduleCache, new AvailabilityStore(repository, null, List.of()),
+                        new PricingRulesProperties());
+        start = OffsetDateTime.of(2025, 3, 10, 8, 17, 0, 0, ZoneOffset.ofHours(2));
+        end = start.plusHours(stayHours).plusMinutes(13);
+    }
+
+    @Benchmark
+    public double calculatePrice() {
+        return pricingStrategy.calculatePrice(lot, start, end);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.licenta.benchmarks;
+
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.example.licenta.Services.FixedPricingStrategy;
+import com.example.licenta.Services.PriceScheduleCache;
+import com.example.licenta.Services.ReservationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReservationService.calculatePrice for FIXED pricing, for stays of different lengths over
+ * schedules with different numbers of intervals per day.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPricingBenchmark {
+
+    @Param({"2", "8"})
+    public int intervalsPerDay;
+
+    @Param({"2", "24", "168"})
+    public int stayHours;
+
+    private ReservationService reservationService;
+    private ParkingLot lot;
+    private OffsetDateTime start;
+    private OffsetDateTime end;
+
+    @Setup
+    public void setUp() {
+        lot = BenchmarkFixtures.parkingLots(1, intervalsPerDay, 3).get(0);
+        ParkingLotRepository repository = BenchmarkFixtures.stubRepository(ParkingLotRepository.class, Map.of(
+                "findById", args -> lot.getId().equals(args[0]) ? Optional.of(lot) : Optional.empty()));
+        PriceScheduleCache priceScheduleCache = new PriceScheduleCache(repository);
+        reservationService = new ReservationService(null, repository, null, null, null, null, null, null, null, null,
+                priceScheduleCache, null, List.of(new FixedPricingStrategy(priceScheduleCache)), "fixed", "fixed");
+        start = OffsetDateTime.of(2025, 3, 10, 8, 17, 0, 0, ZoneOffset.ofHours(2));
+        end = start.plusHours(stayHours).plusMinutes(13);
+        // calculatePrice logs every call to stdout
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Benchmark
+    public Double calculatePrice() {
+        return reservationService.calculatePrice(lot.getId(), start, end);
+    }
+}
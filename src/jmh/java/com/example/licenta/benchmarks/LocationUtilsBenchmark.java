@@ -0,0 +1,56 @@
+package com.example.licenta.benchmarks;
+
+import com.example.licenta.Utils.LocationUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationUtilsBenchmark {
+
+    @Param({"1000", "100000"})
+    public int pointCount;
+
+    private double[][] points;
+
+    @Setup
+    public void setUp() {
+        points = BenchmarkFixtures.queryPoints(pointCount, 42);
+    }
+
+    @Benchmark
+    public void distanceFromCenter(Blackhole blackhole) {
+        for (double[] point : points) {
+            blackhole.consume(LocationUtils.calculateDistanceInMeters(
+                    BenchmarkFixtures.CENTER_LATITUDE, BenchmarkFixtures.CENTER_LONGITUDE, point[0], point[1]));
+        }
+    }
+
+    @Benchmark
+    public void parseAndDistance(Blackhole blackhole, GpsStrings strings) {
+        for (String gps : strings.values) {
+            double[] point = LocationUtils.parseCoordinates(gps);
+            blackhole.consume(LocationUtils.calculateDistanceInMeters(
+                    BenchmarkFixtures.CENTER_LATITUDE, BenchmarkFixtures.CENTER_LONGITUDE, point[0], point[1]));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GpsStrings {
+        String[] values;
+
+        @Setup
+        public void setUp(LocationUtilsBenchmark benchmark) {
+            values = new String[benchmark.points.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = benchmark.points[i][0] + "," + benchmark.points[i][1];
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.licenta.benchmarks;
+
+import com.example.licenta.DTOs.ParkingLotDTO;
+import com.example.licenta.Mappers.ParkingLotMapper;
+import com.example.licenta.Models.ParkingLot;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingLotMapperBenchmark {
+
+    // Roughly one page of a listing endpoint vs. a full catalog export
+    @Param({"20", "10000"})
+    public int lotCount;
+
+    @Param({"2", "8"})
+    public int intervalsPerDay;
+
+    private final ParkingLotMapper mapper = new ParkingLotMapper();
+    private List<ParkingLot> lots;
+
+    @Setup
+    public void setUp() {
+        lots = BenchmarkFixtures.parkingLots(lotCount, intervalsPerDay, 5);
+    }
+
+    @Benchmark
+    public void toDTO(Blackhole blackhole) {
+        for (ParkingLot lot : lots) {
+            ParkingLotDTO dto = mapper.toDTO(lot);
+            blackhole.consume(dto);
+        }
+    }
+}
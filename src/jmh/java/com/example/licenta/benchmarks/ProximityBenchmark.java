@@ -0,0 +1,86 @@
+package com.example.licenta.benchmarks;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.example.licenta.Services.ParkingLotService;
+import com.example.licenta.Services.ParkingLotSpatialIndex;
+import com.example.licenta.Utils.LocationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proximity and inside-lot lookups through ParkingLotService, against the original approach of
+ * parsing every lot's GPS string on each request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProximityBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int lotCount;
+
+    @Param({"100"})
+    public double radiusInMeters;
+
+    private List<ParkingLot> lots;
+    private ParkingLotService parkingLotService;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        lots = BenchmarkFixtures.parkingLots(lotCount, 2, 7);
+        ParkingLotRepository repository = BenchmarkFixtures.stubRepository(ParkingLotRepository.class, Map.of(
+                "findByStatus", args -> args[0] == ParkingLotStatus.ACTIVE ? lots : List.of()));
+        ParkingLotSpatialIndex spatialIndex = new ParkingLotSpatialIndex(repository);
+        spatialIndex.rebuild();
+        parkingLotService = new ParkingLotService(repository, null, null, null, null, spatialIndex, List.of(spatialIndex));
+        queries = BenchmarkFixtures.queryPoints(1024, 11);
+    }
+
+    private double[] nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    @Benchmark
+    public Object closestInProximity() {
+        double[] query = nextQuery();
+        return parkingLotService.findClosestParkingLotInProximity(query[0], query[1], radiusInMeters);
+    }
+
+    @Benchmark
+    public Optional<String> lotAtUserLocation() {
+        double[] query = nextQuery();
+        return parkingLotService.findParkingLotAtUserLocation(query[0], query[1], radiusInMeters);
+    }
+
+    // Baseline: the full scan that parsed every lot's coordinates per request
+    @Benchmark
+    public String fullScanBaseline() {
+        double[] query = nextQuery();
+        String closestId = null;
+        double minDistance = Double.MAX_VALUE;
+        for (ParkingLot lot : lots) {
+            double[] coordinates = LocationUtils.parseCoordinates(lot.getGpsCoordinates());
+            if (coordinates == null) {
+                continue;
+            }
+            double distance = LocationUtils.calculateDistanceInMeters(query[0], query[1], coordinates[0], coordinates[1]);
+            if (distance <= radiusInMeters && distance < minDistance) {
+                minDistance = distance;
+                closestId = lot.getId();
+            }
+        }
+        return closestId;
+    }
+}
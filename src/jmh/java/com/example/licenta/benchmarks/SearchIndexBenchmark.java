@@ -0,0 +1,111 @@
+package com.example.licenta.benchmarks;
+
+import com.example.licenta.DTOs.ParkingLotSearchResultDTO;
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.example.licenta.Services.ParkingLotSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked search over a synthetic catalog, sampled so the report includes p99. Names and street
+ * names are drawn from a vocabulary: 3000 words approximates real lot names, while 20 words makes
+ * every trigram very common, the worst case for candidate generation. Queries are lot names with a
+ * typo in some of them and the last word cut to a prefix in others, as typed into autocomplete.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchIndexBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ba", "ce", "di", "fo", "gu", "la", "me", "ni", "po", "ru", "sa", "te", "vi", "zo", "an", "er",
+            "is", "on", "ul", "cra", "tri", "mun", "vest", "nord", "sud", "par", "cen", "gal", "mar", "lin"};
+
+    @Param({"100000"})
+    public int lotCount;
+
+    @Param({"3000", "20"})
+    public int vocabularySize;
+
+    @Param({"10"})
+    public int limit;
+
+    private ParkingLotSearchIndex searchIndex;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(17);
+        String[] vocabulary = vocabulary(vocabularySize, random);
+        List<ParkingLot> lots = new ArrayList<>(lotCount);
+        for (int i = 0; i < lotCount; i++) {
+            ParkingLot lot = new ParkingLot();
+            lot.setId("lot-" + i);
+            lot.setStatus(ParkingLotStatus.ACTIVE);
+            lot.setName("Parking " + pick(vocabulary, random) + " " + pick(vocabulary, random)
+                    + (random.nextBoolean() ? " " + (1 + random.nextInt(20)) : ""));
+            lot.setAddress("Strada " + pick(vocabulary, random) + " " + (1 + random.nextInt(300)) + ", Cluj-Napoca");
+            lots.add(lot);
+        }
+        ParkingLotRepository repository = BenchmarkFixtures.stubRepository(ParkingLotRepository.class, Map.of(
+                "findByStatus", args -> args[0] == ParkingLotStatus.ACTIVE ? lots : List.of()));
+        searchIndex = new ParkingLotSearchIndex(repository);
+        searchIndex.rebuild();
+
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String name = lots.get(random.nextInt(lots.size())).getName();
+            String query = name.substring("Parking ".length());
+            if (random.nextInt(3) == 0) {
+                int position = random.nextInt(query.length());
+                query = query.substring(0, position) + (char) ('a' + random.nextInt(26)) + query.substring(position + 1);
+            }
+            if (random.nextBoolean()) {
+                int lastSpace = query.lastIndexOf(' ');
+                int lastWordLength = query.length() - lastSpace - 1;
+                query = query.substring(0, lastSpace + 1 + Math.max(1, random.nextInt(lastWordLength + 1)));
+            }
+            queries[i] = query;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        searchIndex.shutdown();
+    }
+
+    @Benchmark
+    public List<ParkingLotSearchResultDTO> search() {
+        next = (next + 1) & (queries.length - 1);
+        return searchIndex.search(queries[next], limit);
+    }
+
+    private static String[] vocabulary(int size, Random random) {
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static String pick(String[] vocabulary, Random random) {
+        return vocabulary[random.nextInt(vocabulary.length)];
+    }
+}
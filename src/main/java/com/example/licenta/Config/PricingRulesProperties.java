@@ -0,0 +1,47 @@
+package com.example.licenta.Config;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotCategory;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of the rule-based dynamic pricing engine. Elasticity curves map occupancy (0 to 1) to a
+ * price multiplier as comma-separated "occupancy:multiplier" points, interpolated linearly, for
+ * example "0:0.9,0.5:1.0,1:1.6".
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pricing.rules")
+public class PricingRulesProperties {
+
+    // Hourly rate for DYNAMIC lots that have no price intervals of their own
+    private double defaultHourlyRate = 5.0;
+
+    private double minMultiplier = 0.5;
+
+    private double maxMultiplier = 3.0;
+
+    // Demand factor by local hour of the day, 24 entries each
+    private List<Double> weekdayDemand = List.of(
+            0.7, 0.7, 0.7, 0.7, 0.7, 0.8, 0.9, 1.1, 1.25, 1.2, 1.05, 1.0,
+            1.05, 1.05, 1.0, 1.05, 1.2, 1.25, 1.15, 1.0, 0.9, 0.85, 0.8, 0.75);
+
+    private List<Double> weekendDemand = List.of(
+            0.75, 0.7, 0.7, 0.7, 0.7, 0.7, 0.75, 0.8, 0.9, 1.0, 1.1, 1.15,
+            1.2, 1.2, 1.15, 1.15, 1.15, 1.1, 1.05, 1.0, 0.95, 0.9, 0.85, 0.8);
+
+    private Map<ParkingLotCategory, Double> categoryFactors = new EnumMap<>(Map.of(
+            ParkingLotCategory.PUBLIC, 1.0,
+            ParkingLotCategory.PRIVATE, 1.1));
+
+    private String defaultElasticity = "0:0.9,0.5:1.0,0.8:1.25,1:1.6";
+
+    // Owner (user) id to elasticity curve, for owners that price against demand differently
+    private Map<String, String> ownerElasticity = new HashMap<>();
+}
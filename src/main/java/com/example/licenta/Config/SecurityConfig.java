@@ -2,6 +2,7 @@ package com.example.licenta.Config;
 
 import com.example.licenta.JwtComponents.JwtAuthenticationEntryPoint;
 import com.example.licenta.JwtComponents.JwtAuthenticationFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -31,11 +32,15 @@ public class SecurityConfig {
 
     private final JwtAuthenticationEntryPoint unauthorizedHandler;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    // Only the local stand-in for the AI analytics service is public, and only while it is enabled
+    private final boolean aiAnalyticsStubEnabled;
 
     public SecurityConfig(JwtAuthenticationEntryPoint unauthorizedHandler,
-                          JwtAuthenticationFilter jwtAuthenticationFilter) {
+                          JwtAuthenticationFilter jwtAuthenticationFilter,
+                          @Value("${ai.analytics.stub.enabled:false}") boolean aiAnalyticsStubEnabled) {
         this.unauthorizedHandler = unauthorizedHandler;
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.aiAnalyticsStubEnabled = aiAnalyticsStubEnabled;
     }
 
     @Bean
@@ -71,7 +76,11 @@ public class SecurityConfig {
                         .authenticationEntryPoint(unauthorizedHandler))
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authorizeHttpRequests(auth -> auth
+                .authorizeHttpRequests(auth -> {
+                    if (aiAnalyticsStubEnabled) {
+                        auth.requestMatchers("/ai-analytics/**").permitAll();
+                    }
+                    auth
                         .requestMatchers("/api/webhooks/**").permitAll() //!!!
                         .requestMatchers(
                                 "/.well-known/**",
@@ -99,7 +108,8 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET,
                                 "/api/parking-lots",
                                 "/api/parking-lots/",
-                                "/api/parking-lots/**"
+                                "/api/parking-lots/**",
+                                "/api/availability/stream"
                         ).permitAll()
 
                         .requestMatchers("/api/reservations/**").permitAll()
@@ -122,7 +132,8 @@ public class SecurityConfig {
                                 "/webjars/**"
                         ).permitAll()
 
-                        .anyRequest().authenticated());
+                        .anyRequest().authenticated();
+                });
 
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
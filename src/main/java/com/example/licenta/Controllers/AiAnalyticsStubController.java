@@ -0,0 +1,47 @@
+package com.example.licenta.Controllers;
+
+import com.example.licenta.DTOs.AiAnalyticsBulkRequestDTO;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for the AI analytics service, enabled with ai.analytics.stub.enabled=true. Point
+ * ai.analytics.base.url at this application's /ai-analytics to poll without the real service.
+ */
+@RestController
+@RequestMapping("/ai-analytics")
+@ConditionalOnProperty(name = "ai.analytics.stub.enabled", havingValue = "true")
+public class AiAnalyticsStubController {
+
+    private static final int DEFAULT_CAPACITY = 100;
+
+    private final ParkingLotRepository parkingLotRepository;
+
+    @Autowired
+    public AiAnalyticsStubController(ParkingLotRepository parkingLotRepository) {
+        this.parkingLotRepository = parkingLotRepository;
+    }
+
+    @GetMapping("/parking-spots")
+    public Integer getParkingSpots() {
+        return ThreadLocalRandom.current().nextInt(DEFAULT_CAPACITY + 1);
+    }
+
+    @PostMapping("/parking-spots/bulk")
+    public Map<String, Integer> getParkingSpotsBulk(@Valid @RequestBody AiAnalyticsBulkRequestDTO request) {
+        Map<String, Integer> emptySpotsById = new LinkedHashMap<>();
+        for (ParkingLot parkingLot : parkingLotRepository.findAllById(request.getParkingLotIds())) {
+            int capacity = parkingLot.getTotalSpots() != null ? parkingLot.getTotalSpots() : DEFAULT_CAPACITY;
+            emptySpotsById.put(parkingLot.getId(), ThreadLocalRandom.current().nextInt(capacity + 1));
+        }
+        return emptySpotsById;
+    }
+}
@@ -22,42 +22,58 @@ public class ParkingLotAccessController {
     // 1. GPS Automated Check-in
     @PostMapping("/gps-checkin-user")
     public ResponseEntity<ApiResponse<Object>> gpsCheckInUser(
-            @RequestParam String parkingLotId,
+            @RequestParam(required = false) String parkingLotId,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double accuracy,
             @Nullable @RequestParam String userId) {
-        parkingLotAccessService.gpsCheckInUser(userId, parkingLotId);
+        String resolvedParkingLotId = parkingLotAccessService.resolveParkingLotId(parkingLotId, latitude, longitude, accuracy);
+        parkingLotAccessService.gpsCheckInUser(userId, resolvedParkingLotId);
         ApiResponse<Object> response = new ApiResponse<>(true, HttpStatus.OK.value(),
-                String.format("User %s GPS check-in successful for parking lot %s.", userId, parkingLotId), null);
+                String.format("User %s GPS check-in successful for parking lot %s.", userId, resolvedParkingLotId), null);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/gps-checkin-guest")
     public ResponseEntity<ApiResponse<Object>> gpsCheckInGuest(
-            @RequestParam String parkingLotId,
+            @RequestParam(required = false) String parkingLotId,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double accuracy,
             @RequestParam String deviceIdentifier) {
-        parkingLotAccessService.gpsCheckInGuest(deviceIdentifier, parkingLotId);
+        String resolvedParkingLotId = parkingLotAccessService.resolveParkingLotId(parkingLotId, latitude, longitude, accuracy);
+        parkingLotAccessService.gpsCheckInGuest(deviceIdentifier, resolvedParkingLotId);
         ApiResponse<Object> response = new ApiResponse<>(true, HttpStatus.OK.value(),
-                String.format("Guest with deviceIdentifier: %s GPS check-in successful for parking lot %s.", deviceIdentifier, parkingLotId), null);
+                String.format("Guest with deviceIdentifier: %s GPS check-in successful for parking lot %s.", deviceIdentifier, resolvedParkingLotId), null);
         return ResponseEntity.ok(response);
     }
 
     // 1. GPS Automated Check-out
     @PostMapping("/gps-checkout-user")
     public ResponseEntity<ApiResponse<Object>> gpsCheckOutUser(
-            @RequestParam String parkingLotId,
+            @RequestParam(required = false) String parkingLotId,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double accuracy,
             @RequestParam String userId) {
-        parkingLotAccessService.gpsCheckOutUser(userId, parkingLotId);
+        String resolvedParkingLotId = parkingLotAccessService.resolveParkingLotId(parkingLotId, latitude, longitude, accuracy);
+        parkingLotAccessService.gpsCheckOutUser(userId, resolvedParkingLotId);
         ApiResponse<Object> response = new ApiResponse<>(true, HttpStatus.OK.value(),
-                String.format("User %s GPS check-out successful from parking lot %s.", userId, parkingLotId), null);
+                String.format("User %s GPS check-out successful from parking lot %s.", userId, resolvedParkingLotId), null);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/gps-checkout-guest")
     public ResponseEntity<ApiResponse<Object>> gpsCheckOutGuest(
-            @RequestParam String parkingLotId,
+            @RequestParam(required = false) String parkingLotId,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double accuracy,
             @Nullable @RequestParam String deviceIdentifier) {
-        parkingLotAccessService.gpsCheckOutGuest(deviceIdentifier, parkingLotId);
+        String resolvedParkingLotId = parkingLotAccessService.resolveParkingLotId(parkingLotId, latitude, longitude, accuracy);
+        parkingLotAccessService.gpsCheckOutGuest(deviceIdentifier, resolvedParkingLotId);
         ApiResponse<Object> response = new ApiResponse<>(true, HttpStatus.OK.value(),
-                String.format("Guest with deviceIdentifier: %s GPS check-out successful from parking lot %s.", deviceIdentifier, parkingLotId), null);
+                String.format("Guest with deviceIdentifier: %s GPS check-out successful from parking lot %s.", deviceIdentifier, resolvedParkingLotId), null);
         return ResponseEntity.ok(response);
     }
 
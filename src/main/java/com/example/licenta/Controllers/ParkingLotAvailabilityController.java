@@ -1,27 +1,61 @@
 package com.example.licenta.Controllers;
 
 import com.example.licenta.DTOs.ApiResponse;
+import com.example.licenta.DTOs.AvailabilityHistoryPointDTO;
+import com.example.licenta.DTOs.AvailabilityUpdateDTO;
+import com.example.licenta.DTOs.OccupancyForecastDTO;
 import com.example.licenta.DTOs.ParkingLotDTO;
 import com.example.licenta.DTOs.UpdateAvailabilityRequestDTO;
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Services.AiAnalyticsPoller;
+import com.example.licenta.Services.AvailabilityBroadcastHub;
+import com.example.licenta.Services.AvailabilityHistoryStore;
 import com.example.licenta.Services.AvailabilityService;
+import com.example.licenta.Services.OccupancyForecaster;
+import com.example.licenta.Services.ParkingLotSpatialIndex;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/availability")
 public class ParkingLotAvailabilityController {
 
     private final AvailabilityService availabilityService;
+    private final AiAnalyticsPoller aiAnalyticsPoller;
+    private final AvailabilityBroadcastHub broadcastHub;
+    private final ParkingLotSpatialIndex spatialIndex;
+    private final AvailabilityHistoryStore historyStore;
+    private final OccupancyForecaster occupancyForecaster;
     private static final Logger logger = LoggerFactory.getLogger(ParkingLotAvailabilityController.class);
 
+    private static final int MAX_STREAMED_LOTS = 500;
+    private static final Duration STREAM_HEARTBEAT = Duration.ofSeconds(15);
+
     @Autowired
-    public ParkingLotAvailabilityController(AvailabilityService availabilityService) {
+    public ParkingLotAvailabilityController(AvailabilityService availabilityService,
+                                            AiAnalyticsPoller aiAnalyticsPoller,
+                                            AvailabilityBroadcastHub broadcastHub,
+                                            ParkingLotSpatialIndex spatialIndex,
+                                            AvailabilityHistoryStore historyStore,
+                                            OccupancyForecaster occupancyForecaster) {
         this.availabilityService = availabilityService;
+        this.aiAnalyticsPoller = aiAnalyticsPoller;
+        this.broadcastHub = broadcastHub;
+        this.spatialIndex = spatialIndex;
+        this.historyStore = historyStore;
+        this.occupancyForecaster = occupancyForecaster;
     }
 
     @GetMapping("/{parkingLotId}")
@@ -37,6 +71,70 @@ public class ParkingLotAvailabilityController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/{parkingLotId}/history")
+    public ResponseEntity<ApiResponse<List<AvailabilityHistoryPointDTO>>> getAvailabilityHistory(
+            @PathVariable String parkingLotId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        List<AvailabilityHistoryPointDTO> history = historyStore.getHistory(parkingLotId, from, to != null ? to : OffsetDateTime.now());
+        ApiResponse<List<AvailabilityHistoryPointDTO>> response = new ApiResponse<>(
+                true,
+                HttpStatus.OK.value(),
+                "Availability history retrieved successfully.",
+                history
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{parkingLotId}/forecast")
+    public ResponseEntity<ApiResponse<OccupancyForecastDTO>> getOccupancyForecast(
+            @PathVariable String parkingLotId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime at) {
+        OccupancyForecastDTO forecast = occupancyForecaster.forecast(parkingLotId, at != null ? at : OffsetDateTime.now());
+        ApiResponse<OccupancyForecastDTO> response = new ApiResponse<>(
+                true,
+                HttpStatus.OK.value(),
+                "Occupancy forecast retrieved successfully.",
+                forecast
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Server-Sent Events stream of {lotId, spotsAvailable, updatedAt} for the given lots, or for the lots
+     * inside the bounding box at subscription time. Starts with the current values, then sends changes.
+     */
+    @GetMapping("/stream")
+    public Flux<ServerSentEvent<AvailabilityUpdateDTO>> streamAvailability(
+            @RequestParam(required = false) List<String> lotIds,
+            @RequestParam(required = false) Double minLat,
+            @RequestParam(required = false) Double minLng,
+            @RequestParam(required = false) Double maxLat,
+            @RequestParam(required = false) Double maxLng) {
+        List<String> parkingLotIds;
+        if (lotIds != null && !lotIds.isEmpty()) {
+            parkingLotIds = lotIds;
+        } else if (minLat != null && minLng != null && maxLat != null && maxLng != null) {
+            if (minLat > maxLat || minLng > maxLng) {
+                throw new InvalidDataException("Bounding box minimums must not exceed its maximums.");
+            }
+            parkingLotIds = spatialIndex.findWithinBounds(minLat, minLng, maxLat, maxLng);
+        } else {
+            throw new InvalidDataException("Either lotIds or a complete bounding box (minLat, minLng, maxLat, maxLng) is required.");
+        }
+        if (parkingLotIds.size() > MAX_STREAMED_LOTS) {
+            throw new InvalidDataException("A stream can watch at most " + MAX_STREAMED_LOTS + " parking lots.");
+        }
+        logger.info("Opening availability stream for {} parking lots.", parkingLotIds.size());
+
+        Flux<ServerSentEvent<AvailabilityUpdateDTO>> updates = broadcastHub
+                .stream(parkingLotIds, availabilityService::getAvailabilitySnapshot)
+                .map(update -> ServerSentEvent.builder(update).event("availability").id(update.getLotId()).build());
+        Flux<ServerSentEvent<AvailabilityUpdateDTO>> heartbeats = Flux.interval(STREAM_HEARTBEAT)
+                .map(tick -> ServerSentEvent.<AvailabilityUpdateDTO>builder().comment("keep-alive").build());
+        return Flux.merge(updates, heartbeats);
+    }
+
     @PostMapping("/sensor-update/{parkingLotId}")
     public ResponseEntity<ApiResponse<ParkingLotDTO>> updateAvailabilityFromExternalSystem(
             @PathVariable String parkingLotId,
@@ -83,14 +181,14 @@ public class ParkingLotAvailabilityController {
         logger.info("Manual AI Analytics polling requested for parking lot ID: {}", parkingLotId);
 
         try {
-            ParkingLotDTO updatedParkingLot = availabilityService.manualPollAiAnalytics(parkingLotId);
+            AiAnalyticsPoller.PollOutcome outcome = aiAnalyticsPoller.pollNow(parkingLotId);
 
-            if (updatedParkingLot != null) {
+            if (outcome != AiAnalyticsPoller.PollOutcome.FAILED) {
                 ApiResponse<ParkingLotDTO> response = new ApiResponse<>(
                         true,
                         HttpStatus.OK.value(),
                         "AI Analytics polling completed successfully for parking lot.",
-                        updatedParkingLot
+                        availabilityService.getCurrentAvailability(parkingLotId)
                 );
                 return ResponseEntity.ok(response);
             } else {
@@ -1,24 +1,35 @@
 package com.example.licenta.Controllers;
 
 import com.example.licenta.DTOs.*;
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
 import com.example.licenta.Enum.ParkingLot.PaymentTiming;
 import com.example.licenta.Exceptions.InvalidDataException;
 import com.example.licenta.Mappers.ParkingLotMapper;
 import com.example.licenta.Models.ParkingLot;
 import com.example.licenta.Models.User;
+import com.example.licenta.Services.AvailabilityStore;
+import com.example.licenta.Services.ParkingLotFacetIndex;
+import com.example.licenta.Services.ParkingLotSearchIndex;
 import com.example.licenta.Services.ParkingLotService;
+import com.example.licenta.Services.ParkingLotSpatialIndex;
+import com.example.licenta.Services.ParkingLotTileService;
+import com.example.licenta.Services.PriceCalendarService;
 import com.example.licenta.Services.ReservationService;
 import com.example.licenta.Services.UserService;
+import com.example.licenta.Utils.LocationUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,17 +44,32 @@ public class ParkingLotController {
     private final ReservationService reservationService;
     private final UserService userService;
     private final ParkingLotMapper parkingLotMapper;
+    private final ParkingLotTileService parkingLotTileService;
+    private final ParkingLotFacetIndex parkingLotFacetIndex;
+    private final ParkingLotSearchIndex parkingLotSearchIndex;
+    private final PriceCalendarService priceCalendarService;
+    private final AvailabilityStore availabilityStore;
 
     @Autowired
     public ParkingLotController(
             ParkingLotService parkingLotService,
             UserService userService,
             ReservationService reservationService,
-            ParkingLotMapper parkingLotMapper) {
+            ParkingLotMapper parkingLotMapper,
+            ParkingLotTileService parkingLotTileService,
+            ParkingLotFacetIndex parkingLotFacetIndex,
+            ParkingLotSearchIndex parkingLotSearchIndex,
+            PriceCalendarService priceCalendarService,
+            AvailabilityStore availabilityStore) {
         this.parkingLotService = parkingLotService;
         this.reservationService = reservationService;
         this.userService = userService;
         this.parkingLotMapper = parkingLotMapper;
+        this.parkingLotTileService = parkingLotTileService;
+        this.parkingLotFacetIndex = parkingLotFacetIndex;
+        this.parkingLotSearchIndex = parkingLotSearchIndex;
+        this.priceCalendarService = priceCalendarService;
+        this.availabilityStore = availabilityStore;
     }
 
     @GetMapping("/check-location-proximity")
@@ -87,10 +113,10 @@ public class ParkingLotController {
             throw new InvalidDataException("Accuracy must be a positive value.");
         }
 
-        Optional<ParkingLot> foundLotOpt = parkingLotService.findParkingLotAtUserLocation(latitude, longitude, accuracy);
+        Optional<String> foundLotIdOpt = parkingLotService.findParkingLotAtUserLocation(latitude, longitude, accuracy);
 
-        if (foundLotOpt.isPresent()) {
-            String parkingLotId = foundLotOpt.get().getId();
+        if (foundLotIdOpt.isPresent()) {
+            String parkingLotId = foundLotIdOpt.get();
             ApiResponse<String> response = new ApiResponse<>(
                     true,
                     HttpStatus.OK.value(),
@@ -109,10 +135,26 @@ public class ParkingLotController {
         }
     }
 
+    @PostMapping("/check-locations")
+    public ResponseEntity<ApiResponse<List<LocationCheckResultDTO>>> checkLocationsBatch(
+            @Valid @RequestBody LocationCheckBatchRequestDTO request) {
+
+        double proximityRadius = request.getProximityRadius() != null ? request.getProximityRadius() : 100.0;
+        List<LocationCheckResultDTO> results = parkingLotService.checkLocations(request.getSamples(), proximityRadius);
+
+        ApiResponse<List<LocationCheckResultDTO>> response = new ApiResponse<>(
+                true,
+                HttpStatus.OK.value(),
+                "Location samples checked successfully",
+                results
+        );
+        return ResponseEntity.ok(response);
+    }
+
         @PostMapping
     public ResponseEntity<ApiResponse<?>> createParkingLot(@Valid @RequestBody ParkingLotDTO parkingLotDTO) {
         ParkingLot parkingLot = parkingLotService.createParkingLot(parkingLotDTO, parkingLotDTO.getOwnerId());
-        ParkingLotDTO responseDTO = parkingLotMapper.toDTO(parkingLot);
+        ParkingLotDTO responseDTO = toLiveDTO(parkingLot);
         ApiResponse<ParkingLotDTO> response = new ApiResponse<>(true, HttpStatus.CREATED.value(), "Parking lot created successfully", responseDTO);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
@@ -129,7 +171,7 @@ public class ParkingLotController {
         Page<ParkingLot> parkingLotsPage = parkingLotService.getAllParkingLots(pageable);
 
         List<ParkingLotDTO> parkingLotDTOs = parkingLotsPage.getContent().stream()
-                .map(parkingLotMapper::toDTO)
+                .map(this::toLiveDTO)
                 .collect(Collectors.toList());
 
         Map<String, Object> responseData = new HashMap<>();
@@ -145,11 +187,25 @@ public class ParkingLotController {
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<ParkingLotDTO>> getParkingLotById(@PathVariable String id) {
         ParkingLot parkingLot = parkingLotService.getParkingLotById(id);
-        ParkingLotDTO responseDTO = parkingLotMapper.toDTO(parkingLot);
+        ParkingLotDTO responseDTO = toLiveDTO(parkingLot);
         ApiResponse<ParkingLotDTO> response = new ApiResponse<>(true, HttpStatus.OK.value(), "Parking lot retrieved successfully", responseDTO);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/{id}/price-calendar")
+    public ResponseEntity<ApiResponse<PriceCalendarDTO>> getPriceCalendar(@PathVariable String id, WebRequest request) {
+        PriceCalendarService.Calendar calendar = priceCalendarService.getCalendar(id);
+        // Answers 304 Not Modified when the client's copy is current
+        if (request.checkNotModified(calendar.getETag())) {
+            return null;
+        }
+        ApiResponse<PriceCalendarDTO> response = new ApiResponse<>(true, HttpStatus.OK.value(), "Price calendar retrieved successfully", calendar.getCalendar());
+        return ResponseEntity.ok()
+                .eTag(calendar.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getParkingLotsByUser(
                                                                                   @PathVariable String userId,
@@ -166,7 +222,7 @@ public class ParkingLotController {
         Page<ParkingLot> parkingLotsPage = parkingLotService.getParkingLotsByOwner(user, pageable);
 
         List<ParkingLotDTO> parkingLotDTOs = parkingLotsPage.getContent().stream()
-                .map(parkingLotMapper::toDTO)
+                .map(this::toLiveDTO)
                 .collect(Collectors.toList());
 
         Map<String, Object> responseData = new HashMap<>();
@@ -191,7 +247,14 @@ public class ParkingLotController {
         Page<ParkingLot> parkingLotsPage = parkingLotService.findNearbyParkingLots(latitude, longitude, radius, pageable);
 
         List<ParkingLotDTO> parkingLotDTOs = parkingLotsPage.getContent().stream()
-                .map(parkingLotMapper::toDTO)
+                .map(parkingLot -> {
+                    ParkingLotDTO dto = toLiveDTO(parkingLot);
+                    if (parkingLot.getLatitude() != null && parkingLot.getLongitude() != null) {
+                        dto.setDistanceInMeters(LocationUtils.calculateDistanceInMeters(
+                                latitude, longitude, parkingLot.getLatitude(), parkingLot.getLongitude()));
+                    }
+                    return dto;
+                })
                 .collect(Collectors.toList());
 
         Map<String, Object> responseData = new HashMap<>();
@@ -204,13 +267,72 @@ public class ParkingLotController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/nearest")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getNearestParkingLots(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(required = false) String cursor) {
+
+        List<ParkingLotSpatialIndex.ProximityMatch> matches = parkingLotService.findNearestParkingLots(lat, lng, k, cursor);
+        Map<String, ParkingLot> parkingLotsById = parkingLotService.getParkingLotsByIds(
+                matches.stream().map(match -> match.getParkingLot().getId()).collect(Collectors.toList()));
+
+        List<ParkingLotDTO> parkingLotDTOs = new ArrayList<>();
+        for (ParkingLotSpatialIndex.ProximityMatch match : matches) {
+            ParkingLot parkingLot = parkingLotsById.get(match.getParkingLot().getId());
+            if (parkingLot == null || parkingLot.getStatus() != ParkingLotStatus.ACTIVE) {
+                continue;
+            }
+            ParkingLotDTO dto = toLiveDTO(parkingLot);
+            dto.setDistanceInMeters(match.getDistanceInMeters());
+            parkingLotDTOs.add(dto);
+        }
+
+        Map<String, Object> responseData = new HashMap<>();
+        responseData.put("parkingLots", parkingLotDTOs);
+        responseData.put("nextCursor", matches.size() == k ? parkingLotService.encodeNearestCursor(matches.get(matches.size() - 1)) : null);
+
+        ApiResponse<Map<String, Object>> response = new ApiResponse<>(true, HttpStatus.OK.value(), "Nearest parking lots retrieved successfully", responseData);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<ParkingLotSearchResultDTO>>> searchParkingLots(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 50) {
+            throw new InvalidDataException("Limit must be between 1 and 50.");
+        }
+        List<ParkingLotSearchResultDTO> results = parkingLotSearchIndex.search(q, limit);
+        ApiResponse<List<ParkingLotSearchResultDTO>> response = new ApiResponse<>(true, HttpStatus.OK.value(), "Parking lots searched successfully", results);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<FacetSearchResultDTO>> searchParkingLotsByFacets(@Valid FacetSearchRequestDTO request) {
+        FacetSearchResultDTO result = parkingLotFacetIndex.search(request);
+        ApiResponse<FacetSearchResultDTO> response = new ApiResponse<>(true, HttpStatus.OK.value(), "Parking lots filtered successfully", result);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    public ResponseEntity<ApiResponse<List<TileClusterDTO>>> getParkingLotTile(
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y) {
+        List<TileClusterDTO> clusters = parkingLotTileService.getTile(z, x, y);
+        ApiResponse<List<TileClusterDTO>> response = new ApiResponse<>(true, HttpStatus.OK.value(), "Parking lot tile retrieved successfully", clusters);
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<?>> updateParkingLot(
             @PathVariable String id,
             @Valid @RequestBody ParkingLotDTO parkingLotDTO) {
         ParkingLot parkingLot = parkingLotService.getParkingLotById(id);
         ParkingLot updatedParkingLot = parkingLotService.updateParkingLot(id, parkingLotDTO, parkingLot.getOwner().getId());
-        ParkingLotDTO responseDTO = parkingLotMapper.toDTO(updatedParkingLot);
+        ParkingLotDTO responseDTO = toLiveDTO(updatedParkingLot);
         ApiResponse<ParkingLotDTO> response = new ApiResponse<>(true, HttpStatus.OK.value(), "Parking lot updated successfully", responseDTO);
         return ResponseEntity.ok(response);
     }
@@ -235,7 +357,7 @@ public class ParkingLotController {
         Page<ParkingLot> parkingLotsPage = parkingLotService.getParkingLotsAllowingDirectPayment(pageable);
 
         List<ParkingLotDTO> parkingLotDTOs = parkingLotsPage.getContent().stream()
-                .map(parkingLotMapper::toDTO)
+                .map(this::toLiveDTO)
                 .collect(Collectors.toList());
 
         Map<String, Object> responseData = new HashMap<>();
@@ -260,7 +382,7 @@ public class ParkingLotController {
         Page<ParkingLot> parkingLotsPage = parkingLotService.getParkingLotsAllowingStandardReservations(pageable);
 
         List<ParkingLotDTO> parkingLotDTOs = parkingLotsPage.getContent().stream()
-                .map(parkingLotMapper::toDTO)
+                .map(this::toLiveDTO)
                 .collect(Collectors.toList());
 
         Map<String, Object> responseData = new HashMap<>();
@@ -285,7 +407,7 @@ public class ParkingLotController {
         Page<ParkingLot> parkingLotsPage = parkingLotService.getParkingLotsAllowingPayForUsageReservations(pageable);
 
         List<ParkingLotDTO> parkingLotDTOs = parkingLotsPage.getContent().stream()
-                .map(parkingLotMapper::toDTO)
+                .map(this::toLiveDTO)
                 .collect(Collectors.toList());
 
         Map<String, Object> responseData = new HashMap<>();
@@ -310,7 +432,7 @@ public class ParkingLotController {
         Page<ParkingLot> parkingLotsPage = parkingLotService.getParkingLotsAllowingAnyReservation(pageable);
 
         List<ParkingLotDTO> parkingLotDTOs = parkingLotsPage.getContent().stream()
-                .map(parkingLotMapper::toDTO)
+                .map(this::toLiveDTO)
                 .collect(Collectors.toList());
 
         Map<String, Object> responseData = new HashMap<>();
@@ -366,4 +488,11 @@ public class ParkingLotController {
         );
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    // The entity's spotsAvailable is only as fresh as the last write-behind flush
+    private ParkingLotDTO toLiveDTO(ParkingLot parkingLot) {
+        ParkingLotDTO dto = parkingLotMapper.toDTO(parkingLot);
+        dto.setSpotsAvailable(availabilityStore.getSpotsAvailable(parkingLot));
+        return dto;
+    }
+}
@@ -148,7 +148,7 @@ public class ReservationController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endTime) {
 
 
-        Double calculatedPrice = reservationService.calculatePrice(parkingLotId, startTime, endTime);
+        Double calculatedPrice = reservationService.quotePrice(parkingLotId, startTime, endTime);
 
         Map<String, Double> responseData = new HashMap<>();
         responseData.put("totalAmount", calculatedPrice);
@@ -162,6 +162,21 @@ public class ReservationController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/calculate-prices")
+    public ResponseEntity<ApiResponse<List<PriceQuoteResultDTO>>> calculatePrices(
+            @Valid @RequestBody PriceQuoteBatchRequestDTO request) {
+
+        List<PriceQuoteResultDTO> results = reservationService.quotePrices(request.getQuotes());
+
+        ApiResponse<List<PriceQuoteResultDTO>> response = new ApiResponse<>(
+                true,
+                HttpStatus.OK.value(),
+                "Prices calculated successfully",
+                results
+        );
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/user/{userId}/active")
     public ResponseEntity<ApiResponse<ReservationDTO>> getActiveReservation(@PathVariable String userId) {
         Optional<ReservationDTO> activeReservationOpt = reservationService.findActiveReservation(userId);
@@ -0,0 +1,16 @@
+package com.example.licenta.ConverterComponents;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotCategory;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StringToParkingLotCategoryConverter implements Converter<String, ParkingLotCategory> {
+    @Override
+    public ParkingLotCategory convert(String source) {
+        if (source == null || source.trim().isEmpty()) {
+            return null;
+        }
+        return ParkingLotCategory.fromString(source.trim());
+    }
+}
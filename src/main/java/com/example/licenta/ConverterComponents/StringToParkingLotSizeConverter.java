@@ -0,0 +1,16 @@
+package com.example.licenta.ConverterComponents;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotSize;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StringToParkingLotSizeConverter implements Converter<String, ParkingLotSize> {
+    @Override
+    public ParkingLotSize convert(String source) {
+        if (source == null || source.trim().isEmpty()) {
+            return null;
+        }
+        return ParkingLotSize.fromString(source.trim());
+    }
+}
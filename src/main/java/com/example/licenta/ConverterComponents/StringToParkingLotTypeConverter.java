@@ -0,0 +1,16 @@
+package com.example.licenta.ConverterComponents;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotType;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StringToParkingLotTypeConverter implements Converter<String, ParkingLotType> {
+    @Override
+    public ParkingLotType convert(String source) {
+        if (source == null || source.trim().isEmpty()) {
+            return null;
+        }
+        return ParkingLotType.fromString(source.trim());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.licenta.DTOs;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiAnalyticsBulkRequestDTO {
+
+    @NotEmpty(message = "At least one parking lot ID is required.")
+    private List<String> parkingLotIds;
+}
@@ -0,0 +1,18 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityHistoryPointDTO {
+    private OffsetDateTime timestamp;
+    private Integer resolutionMinutes;
+    private Double spotsAvailable;
+    private Integer minSpotsAvailable;
+    private Integer maxSpotsAvailable;
+}
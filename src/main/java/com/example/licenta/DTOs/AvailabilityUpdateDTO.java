@@ -0,0 +1,16 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityUpdateDTO {
+    private String lotId;
+    private Integer spotsAvailable;
+    private OffsetDateTime updatedAt;
+}
@@ -0,0 +1,17 @@
+package com.example.licenta.DTOs;
+
+import com.example.licenta.Enum.ParkingLot.ExtensionPricingModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtensionPricingDTO {
+    private boolean allowed;
+    private Integer maxExtensionMinutes;
+    private ExtensionPricingModel pricingModel;
+    // Added on top of the calendar price of the extra time, 0 unless the model is HIGHER
+    private Double surchargePercentage;
+}
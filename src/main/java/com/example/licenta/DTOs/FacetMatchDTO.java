@@ -0,0 +1,14 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetMatchDTO {
+    private String parkingLotId;
+    // Only populated when the search has a location
+    private Double distanceInMeters;
+}
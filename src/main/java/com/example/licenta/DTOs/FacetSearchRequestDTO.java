@@ -0,0 +1,41 @@
+package com.example.licenta.DTOs;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotCategory;
+import com.example.licenta.Enum.ParkingLot.ParkingLotSize;
+import com.example.licenta.Enum.ParkingLot.ParkingLotType;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Values inside one facet are OR-ed, facets are AND-ed. A feature flag set to false excludes lots having it.
+ */
+@Data
+@NoArgsConstructor
+public class FacetSearchRequestDTO {
+
+    private Set<ParkingLotType> types = new HashSet<>();
+    private Set<ParkingLotCategory> categories = new HashSet<>();
+    private Set<ParkingLotSize> sizes = new HashSet<>();
+
+    private Boolean lighted;
+    private Boolean videoSurveillance;
+    private Boolean evCharging;
+    private Boolean disabilitySpots;
+
+    // Optional radius filter, radius in km as for the nearby search
+    private Double latitude;
+    private Double longitude;
+
+    @Positive(message = "Radius must be a positive value")
+    private Double radius = 5.0;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 500, message = "Limit must be at most 500")
+    private Integer limit = 50;
+}
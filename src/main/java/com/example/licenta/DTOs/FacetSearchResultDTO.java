@@ -0,0 +1,18 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetSearchResultDTO {
+    private Integer totalMatches;
+    private List<FacetMatchDTO> matches;
+    // facet name -> facet value -> number of matching lots having that value
+    private Map<String, Map<String, Integer>> facetCounts;
+}
@@ -0,0 +1,24 @@
+package com.example.licenta.DTOs;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationCheckBatchRequestDTO {
+
+    @NotEmpty(message = "At least one location sample is required")
+    @Size(max = 5000, message = "At most 5000 location samples are allowed per request")
+    private List<@Valid LocationSampleDTO> samples;
+
+    @Positive(message = "Proximity radius must be a positive value")
+    private Double proximityRadius = 100.0;
+}
@@ -0,0 +1,14 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationCheckResultDTO {
+    private String deviceId;
+    private ClosestParkingLotInfoDTO closestParkingLot;
+    private String insideParkingLotId;
+}
@@ -0,0 +1,27 @@
+package com.example.licenta.DTOs;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationSampleDTO {
+
+    @NotBlank(message = "Device ID is required")
+    private String deviceId;
+
+    @NotNull(message = "Latitude is required")
+    private Double latitude;
+
+    @NotNull(message = "Longitude is required")
+    private Double longitude;
+
+    @NotNull(message = "Accuracy is required")
+    @Positive(message = "Accuracy must be a positive value")
+    private Double accuracy;
+}
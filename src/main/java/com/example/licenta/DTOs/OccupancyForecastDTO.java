@@ -0,0 +1,19 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyForecastDTO {
+    private String parkingLotId;
+    private OffsetDateTime at;
+    private Double occupancyRate;
+    private Integer expectedSpotsAvailable;
+    private Integer totalSpots;
+    private OffsetDateTime trainedAt;
+}
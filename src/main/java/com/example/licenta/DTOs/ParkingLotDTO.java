@@ -31,6 +31,9 @@ public class ParkingLotDTO {
             message = "GPS coordinates must be in format 'latitude,longitude'")
     private String gpsCoordinates;
 
+    // "lat,lng;lat,lng;..." with at least 3 vertices; an empty string removes the boundary
+    private String boundaryPolygon;
+
     @NotNull(message = "Category is required")
     @Enumerated(EnumType.STRING)
     private ParkingLotCategory category;
@@ -155,4 +158,7 @@ public class ParkingLotDTO {
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
 
+    // Only populated by location based searches
+    private Double distanceInMeters;
+
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkingLotSearchResultDTO {
+    private String parkingLotId;
+    private String name;
+    private String address;
+    private Double score;
+}
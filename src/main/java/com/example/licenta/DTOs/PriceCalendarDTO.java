@@ -0,0 +1,25 @@
+package com.example.licenta.DTOs;
+
+import com.example.licenta.Enum.ParkingLot.PricingType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceCalendarDTO {
+    private String parkingLotId;
+    private PricingType pricingType;
+    // Last update of the lot the calendar was derived from
+    private OffsetDateTime version;
+    private boolean hasFreeTime;
+    private Integer freeTimeMinutes;
+    // Wall-clock week from Monday 00:00, in the order of the minutes they cover
+    private List<PriceCalendarSegmentDTO> segments;
+    private ExtensionPricingDTO regularExtensions;
+    private ExtensionPricingDTO onTheSpotExtensions;
+}
@@ -0,0 +1,19 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceCalendarSegmentDTO {
+    // Minutes from Monday 00:00, end exclusive
+    private Integer startMinuteOfWeek;
+    private Integer endMinuteOfWeek;
+    // Null where no price interval applies and the lot cannot be booked
+    private Double price;
+    // Minutes billed per price, null when the price is per hour and prorated by the minute
+    private Integer durationMinutes;
+    private Double hourlyRate;
+}
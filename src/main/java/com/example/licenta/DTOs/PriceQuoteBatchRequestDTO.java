@@ -0,0 +1,20 @@
+package com.example.licenta.DTOs;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuoteBatchRequestDTO {
+
+    @NotEmpty(message = "At least one quote is required")
+    @Size(max = 500, message = "At most 500 quotes are allowed per request")
+    private List<@Valid PriceQuoteRequestDTO> quotes;
+}
@@ -0,0 +1,22 @@
+package com.example.licenta.DTOs;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuoteRequestDTO {
+
+    @NotBlank(message = "Parking lot ID is required")
+    private String parkingLotId;
+
+    // ISO 8601 with offset, kept as text so wall-clock pricing sees the client's offset
+    @NotBlank(message = "Start time is required")
+    private String startTime;
+
+    @NotBlank(message = "End time is required")
+    private String endTime;
+}
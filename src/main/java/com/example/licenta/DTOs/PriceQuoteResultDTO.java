@@ -0,0 +1,18 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuoteResultDTO {
+    private String parkingLotId;
+    private String startTime;
+    private String endTime;
+    private Double totalAmount;
+    // HTTP status the single calculate-price call would have answered with
+    private int status;
+    private String error;
+}
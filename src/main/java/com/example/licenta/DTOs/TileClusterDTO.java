@@ -0,0 +1,15 @@
+package com.example.licenta.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileClusterDTO {
+    private Double latitude;
+    private Double longitude;
+    private Integer lotCount;
+    private Integer spotsAvailable;
+}
@@ -26,6 +26,7 @@ public class ParkingLotMapper {
         dto.setAddress(parkingLot.getAddress());
         dto.setAverageRating(parkingLot.getAverageRating());
         dto.setGpsCoordinates(parkingLot.getGpsCoordinates());
+        dto.setBoundaryPolygon(parkingLot.getBoundaryPolygon());
         dto.setDescription(parkingLot.getDescription());
         dto.setMaxVehicleHeight(parkingLot.getMaxVehicleHeight());
         dto.setTotalSpots(parkingLot.getTotalSpots());
@@ -132,6 +133,7 @@ public class ParkingLotMapper {
         if (dto.getName() != null) entity.setName(dto.getName());
         if (dto.getAddress() != null) entity.setAddress(dto.getAddress());
         if (dto.getGpsCoordinates() != null) entity.setGpsCoordinates(dto.getGpsCoordinates());
+        if (dto.getBoundaryPolygon() != null) entity.setBoundaryPolygon(dto.getBoundaryPolygon().isBlank() ? null : dto.getBoundaryPolygon());
         if (dto.getDescription() != null) entity.setDescription(dto.getDescription());
         if (dto.getMaxVehicleHeight() != null) entity.setMaxVehicleHeight(dto.getMaxVehicleHeight());
         if (dto.getTotalSpots() != null) entity.setTotalSpots(dto.getTotalSpots());
@@ -154,7 +156,6 @@ public class ParkingLotMapper {
         if (dto.getPreReservationCancelFee() != null) entity.setPreReservationCancelFee(dto.getPreReservationCancelFee());
         if (dto.getMidReservationCancelWindow() != null) entity.setMidReservationCancelWindow(dto.getMidReservationCancelWindow());
         if (dto.getMidReservationCancelFee() != null) entity.setMidReservationCancelFee(dto.getMidReservationCancelFee());
-        if (dto.getSpotsAvailable() != null) entity.setSpotsAvailable(dto.getSpotsAvailable());
 
         entity.setLighted(dto.isLighted());
         entity.setHasVideoSurveillance(dto.isHasVideoSurveillance());
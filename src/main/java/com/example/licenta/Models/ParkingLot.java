@@ -1,6 +1,7 @@
 package com.example.licenta.Models;
 
 import com.example.licenta.Enum.ParkingLot.*;
+import com.example.licenta.Utils.LocationUtils;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -15,7 +16,9 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "parking_lots")
+@Table(name = "parking_lots", indexes = {
+        @Index(name = "idx_parking_lots_lat_lng", columnList = "latitude, longitude")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,6 +39,17 @@ public class ParkingLot {
     @Column(name = "gps_coordinates")
     private String gpsCoordinates;
 
+    // Derived from gpsCoordinates in its setter so that nearby searches can use an index
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    // Optional geofence, "lat,lng;lat,lng;..." with at least 3 vertices
+    @Column(name = "boundary_polygon", columnDefinition = "TEXT")
+    private String boundaryPolygon;
+
     @Enumerated(EnumType.STRING)
     private ParkingLotCategory category;
 
@@ -220,7 +234,8 @@ public class ParkingLot {
     @Enumerated(EnumType.STRING)
     private ParkingLotStatus status = ParkingLotStatus.PENDING_APPROVAL;
 
-    @Column(name = "spots_available")
+    // Written on insert only, later changes go through AvailabilityStore
+    @Column(name = "spots_available", updatable = false)
     private Integer spotsAvailable;
 
     @Column(name = "created_at")
@@ -240,6 +255,13 @@ public class ParkingLot {
         updatedAt = OffsetDateTime.now();
     }
 
+    public void setGpsCoordinates(String gpsCoordinates) {
+        this.gpsCoordinates = gpsCoordinates;
+        double[] coordinates = LocationUtils.parseCoordinates(gpsCoordinates);
+        this.latitude = coordinates != null ? coordinates[0] : null;
+        this.longitude = coordinates != null ? coordinates[1] : null;
+    }
+
     public void setOwner(User owner) {
         this.owner = owner;
         if (owner != null && !owner.getParkingLots().contains(this)) {
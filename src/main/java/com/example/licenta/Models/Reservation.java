@@ -2,6 +2,7 @@ package com.example.licenta.Models;
 
 import com.example.licenta.Enum.Reservation.ReservationStatus;
 import com.example.licenta.Enum.Reservation.ReservationType;
+import com.example.licenta.Services.ReservationCapacityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -12,6 +13,7 @@ import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "reservations")
+@EntityListeners(ReservationCapacityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -2,17 +2,22 @@ package com.example.licenta.Repositories;
 
 import com.example.licenta.Enum.ParkingLot.AvailabilityTrackingMethod;
 import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Enum.ParkingLot.PricingType;
 import com.example.licenta.Enum.ParkingLot.PaymentTiming;
 import com.example.licenta.Models.ParkingLot;
 import com.example.licenta.Models.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ParkingLotRepository extends JpaRepository<ParkingLot, String> {
@@ -20,6 +25,9 @@ public interface ParkingLotRepository extends JpaRepository<ParkingLot, String>
     Page<ParkingLot> findByOwner(User owner, Pageable pageable);
     Page<ParkingLot> findByAllowDirectPaymentTrue(Pageable pageable);
     List<ParkingLot> findByStatus(ParkingLotStatus status);
+
+    @Query("SELECT p.id FROM ParkingLot p WHERE p.pricingType = :pricingType AND p.status = :status")
+    List<String> findIdsByPricingTypeAndStatus(@Param("pricingType") PricingType pricingType, @Param("status") ParkingLotStatus status);
     List<ParkingLot> findByOwner(User owner);
 
     Page<ParkingLot> findByAllowReservationsTrue(Pageable pageable);
@@ -27,22 +35,69 @@ public interface ParkingLotRepository extends JpaRepository<ParkingLot, String>
     @Query("SELECT p FROM ParkingLot p WHERE p.hasExistingAvailabilitySystem = false AND p.isSharedWithNonAppUsers = true AND p.parkingAvailabilityMethod = :method")
     List<ParkingLot> findEligibleForAiPolling(@Param("method") AvailabilityTrackingMethod method);
 
+    @Query("SELECT DISTINCT p FROM ParkingLot p LEFT JOIN FETCH p.types WHERE p.status = :status")
+    List<ParkingLot> findByStatusFetchingTypes(@Param("status") ParkingLotStatus status);
+
+    @Query("SELECT DISTINCT p FROM ParkingLot p LEFT JOIN FETCH p.priceIntervals WHERE p.id IN :ids")
+    List<ParkingLot> findAllByIdFetchingPriceIntervals(@Param("ids") Collection<String> ids);
+
 
     Page<ParkingLot> findByAllowReservationsTrueAndPaymentTimingEquals(PaymentTiming paymentTiming, Pageable pageable);
 
-    @Query(value = "SELECT * FROM parking_lots p " +
-            "WHERE p.gps_coordinates IS NOT NULL " +
-            "AND p.status = 'ACTIVE' " +
-            "AND (6371 * acos(" +
-            "    cos(radians(:latitude)) * " +
-            "    cos(radians(CAST(trim(split_part(p.gps_coordinates, ',', 1)) AS DOUBLE PRECISION))) * " +
-            "    cos(radians(CAST(trim(split_part(p.gps_coordinates, ',', 2)) AS DOUBLE PRECISION)) - radians(:longitude)) + " +
-            "    sin(radians(:latitude)) * " +
-            "    sin(radians(CAST(trim(split_part(p.gps_coordinates, ',', 1)) AS DOUBLE PRECISION)))" +
-            ")) <= :radiusKm", nativeQuery = true)
+    String NEARBY_FILTER = "FROM parking_lots p " +
+            "WHERE p.status = 'ACTIVE' " +
+            "AND p.latitude BETWEEN :minLatitude AND :maxLatitude " +
+            "AND p.longitude BETWEEN :minLongitude AND :maxLongitude " +
+            "AND (6371 * acos(LEAST(1.0, " +
+            "    cos(radians(:latitude)) * cos(radians(p.latitude)) * " +
+            "    cos(radians(p.longitude) - radians(:longitude)) + " +
+            "    sin(radians(:latitude)) * sin(radians(p.latitude))" +
+            "))) <= :radiusKm ";
+
+    @Query(value = "SELECT p.* " + NEARBY_FILTER +
+            "ORDER BY (6371 * acos(LEAST(1.0, " +
+            "    cos(radians(:latitude)) * cos(radians(p.latitude)) * " +
+            "    cos(radians(p.longitude) - radians(:longitude)) + " +
+            "    sin(radians(:latitude)) * sin(radians(p.latitude))" +
+            "))), p.id",
+            countQuery = "SELECT COUNT(*) " + NEARBY_FILTER,
+            nativeQuery = true)
     Page<ParkingLot> findNearbyParkingLots(
             @Param("latitude") Double latitude,
             @Param("longitude") Double longitude,
             @Param("radiusKm") Double radiusKm,
+            @Param("minLatitude") Double minLatitude,
+            @Param("maxLatitude") Double maxLatitude,
+            @Param("minLongitude") Double minLongitude,
+            @Param("maxLongitude") Double maxLongitude,
             Pageable pageable);
+
+    // Atomic counter updates clamped to [0, total_spots]. Not @Modifying: RETURNING yields the new
+    // value as a result row. An empty result means the lot does not exist (or, for the decrement,
+    // has no initialized count).
+    @Query(value = "UPDATE parking_lots SET " +
+            "spots_available = CASE WHEN total_spots IS NULL THEN COALESCE(spots_available, 0) + 1 " +
+            "ELSE GREATEST(LEAST(COALESCE(spots_available, 0) + 1, total_spots), 0) END, " +
+            "updated_at = :updatedAt " +
+            "WHERE id = :id RETURNING spots_available",
+            nativeQuery = true)
+    Optional<Integer> incrementSpotsAvailable(@Param("id") String id, @Param("updatedAt") OffsetDateTime updatedAt);
+
+    @Query(value = "UPDATE parking_lots SET " +
+            "spots_available = CASE WHEN total_spots IS NULL THEN GREATEST(spots_available - 1, 0) " +
+            "ELSE GREATEST(LEAST(spots_available - 1, total_spots), 0) END, " +
+            "updated_at = :updatedAt " +
+            "WHERE id = :id AND spots_available IS NOT NULL RETURNING spots_available",
+            nativeQuery = true)
+    Optional<Integer> decrementSpotsAvailable(@Param("id") String id, @Param("updatedAt") OffsetDateTime updatedAt);
+
+    // One-off migration of lots stored before the typed latitude/longitude columns existed
+    @Modifying
+    @Query(value = "UPDATE parking_lots SET " +
+            "latitude = CAST(trim(split_part(gps_coordinates, ',', 1)) AS DOUBLE PRECISION), " +
+            "longitude = CAST(trim(split_part(gps_coordinates, ',', 2)) AS DOUBLE PRECISION) " +
+            "WHERE (latitude IS NULL OR longitude IS NULL) " +
+            "AND gps_coordinates ~ '^\\s*-{0,1}[0-9]+(\\.[0-9]+){0,1}\\s*,\\s*-{0,1}[0-9]+(\\.[0-9]+){0,1}\\s*$'",
+            nativeQuery = true)
+    int backfillCoordinatesFromGpsString();
 }
\ No newline at end of file
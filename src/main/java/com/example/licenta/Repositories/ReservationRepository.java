@@ -24,6 +24,8 @@ public interface ReservationRepository extends JpaRepository<Reservation, String
 
     Optional<Reservation> findByStripeSetupIntentId(String stripeSetupIntentId);
 
+    List<Reservation> findByStatusAndReservationTypeIn(ReservationStatus status, Collection<ReservationType> types);
+
     // For findActiveReservation and hasActiveOrUpcomingReservationForLot (STANDARD, DIRECT)
     Optional<Reservation> findFirstByUserIdAndReservationTypeAndStartTimeBeforeAndEndTimeAfterAndStatusOrderByStartTimeDesc(
             String userId, ReservationType type, OffsetDateTime now1, OffsetDateTime now2, ReservationStatus status);
@@ -114,6 +116,24 @@ public interface ReservationRepository extends JpaRepository<Reservation, String
             "AND r.status = com.example.licenta.Enum.Reservation.ReservationStatus.PAID")
     Page<Reservation> findEndedReservationsForParkingLot(@Param("parkingLotId") String parkingLotId, @Param("now") OffsetDateTime now, Pageable pageable);
 
+    // Rows of (parkingLotId, startTime, endTime) for occupancy statistics, endTime is null for running PAY_FOR_USAGE sessions
+    @Query("SELECT r.parkingLot.id, r.startTime, r.endTime FROM Reservation r WHERE r.status IN :statuses " +
+            "AND r.startTime < :to AND (r.endTime IS NULL OR r.endTime > :from)")
+    List<Object[]> findOccupancyIntervals(
+            @Param("statuses") Collection<ReservationStatus> statuses,
+            @Param("from") OffsetDateTime from,
+            @Param("to") OffsetDateTime to
+    );
+
+    // Rows of (reservationId, parkingLotId, startTime, endTime) for reservations still holding a spot after :after
+    @Query("SELECT r.id, r.parkingLot.id, r.startTime, r.endTime FROM Reservation r WHERE r.reservationType IN :types " +
+            "AND r.status IN :statuses AND r.endTime > :after AND r.endTime > r.startTime")
+    List<Object[]> findCapacityIntervals(
+            @Param("types") Collection<ReservationType> types,
+            @Param("statuses") Collection<ReservationStatus> statuses,
+            @Param("after") OffsetDateTime after
+    );
+
     @Query("SELECT r FROM Reservation r WHERE r.parkingLot IN :parkingLots AND r.status = com.example.licenta.Enum.Reservation.ReservationStatus.PAID AND r.endTime >= :overallStartTime AND r.endTime <= :overallEndTime")
     List<Reservation> findPaidReservationsInDateRange(
             @Param("parkingLots") List<ParkingLot> parkingLots,
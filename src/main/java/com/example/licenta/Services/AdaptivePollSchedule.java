@@ -0,0 +1,117 @@
+package com.example.licenta.Services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-lot AI analytics poll schedule. Each lot keeps an exponentially smoothed volatility, the
+ * average change between consecutive readings as a fraction of its capacity, and is polled again
+ * after an interval that shrinks from maxIntervalMs towards minIntervalMs as the volatility grows
+ * past volatilityTarget. Due lots are taken from a priority queue ordered by due time.
+ */
+public class AdaptivePollSchedule {
+
+    private static final double VOLATILITY_SMOOTHING = 0.3;
+
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final double volatilityTarget;
+
+    private static final class LotState {
+        final String parkingLotId;
+        long nextDueAt;
+        double volatility;
+        Integer lastReported;
+        boolean queued;
+
+        LotState(String parkingLotId) {
+            this.parkingLotId = parkingLotId;
+        }
+    }
+
+    // Guarded by this. Queue entries whose state was replaced or removed are skipped when taken.
+    private final Map<String, LotState> states = new HashMap<>();
+    private final PriorityQueue<LotState> queue = new PriorityQueue<>(Comparator.comparingLong(state -> state.nextDueAt));
+
+    public AdaptivePollSchedule(long minIntervalMs, long maxIntervalMs, double volatilityTarget) {
+        this.minIntervalMs = Math.max(1, minIntervalMs);
+        this.maxIntervalMs = Math.max(this.minIntervalMs, maxIntervalMs);
+        this.volatilityTarget = volatilityTarget > 0 ? volatilityTarget : 0.05;
+    }
+
+    /**
+     * Makes the schedule track exactly the given lots. New lots are spread over the first minimum interval.
+     */
+    public synchronized void sync(Collection<String> eligibleParkingLotIds, long now) {
+        Set<String> eligible = new HashSet<>(eligibleParkingLotIds);
+        states.keySet().retainAll(eligible);
+        queue.removeIf(state -> states.get(state.parkingLotId) != state);
+        for (String parkingLotId : eligible) {
+            if (!states.containsKey(parkingLotId)) {
+                LotState state = new LotState(parkingLotId);
+                state.nextDueAt = now + ThreadLocalRandom.current().nextLong(minIntervalMs);
+                state.queued = true;
+                states.put(parkingLotId, state);
+                queue.add(state);
+            }
+        }
+    }
+
+    /**
+     * Removes and returns up to limit lots due at or before now. Every returned lot must be handed
+     * back through {@link #reschedule}.
+     */
+    public synchronized List<String> takeDue(long now, int limit) {
+        List<String> due = new ArrayList<>();
+        while (due.size() < limit && !queue.isEmpty() && queue.peek().nextDueAt <= now) {
+            LotState state = queue.poll();
+            if (states.get(state.parkingLotId) == state) {
+                state.queued = false;
+                due.add(state.parkingLotId);
+            }
+        }
+        return due;
+    }
+
+    public synchronized void observe(String parkingLotId, int reportedEmptySpots, Integer totalSpots) {
+        LotState state = states.get(parkingLotId);
+        if (state == null) {
+            return;
+        }
+        if (state.lastReported != null) {
+            int capacity = totalSpots != null && totalSpots > 0
+                    ? totalSpots
+                    : Math.max(1, Math.max(reportedEmptySpots, state.lastReported));
+            double change = Math.min(1.0, Math.abs(reportedEmptySpots - state.lastReported) / (double) capacity);
+            state.volatility = VOLATILITY_SMOOTHING * change + (1 - VOLATILITY_SMOOTHING) * state.volatility;
+        }
+        state.lastReported = reportedEmptySpots;
+    }
+
+    public synchronized void reschedule(String parkingLotId, long now) {
+        LotState state = states.get(parkingLotId);
+        if (state == null || state.queued) {
+            return;
+        }
+        state.nextDueAt = now + intervalFor(state.volatility);
+        state.queued = true;
+        queue.add(state);
+    }
+
+    public synchronized int size() {
+        return states.size();
+    }
+
+    long intervalFor(double volatility) {
+        long interval = (long) (maxIntervalMs / (1 + volatility / volatilityTarget));
+        return Math.max(minIntervalMs, Math.min(maxIntervalMs, interval));
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.DTOs.AiAnalyticsBulkRequestDTO;
+import com.example.licenta.Enum.ParkingLot.AvailabilityTrackingMethod;
+import com.example.licenta.Exceptions.ResourceNotFoundException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Polls the AI analytics service for CAMERA_AI parking lots on a dedicated, fixed-size pool so a slow
+ * analytics service can only tie up its own threads. HTTP calls use their own timeouts and run
+ * outside any transaction, each lot starts after a random jitter, and a cycle is skipped while the
+ * previous one is still running.
+ */
+@Service
+public class AiAnalyticsPoller {
+
+    public enum PollOutcome { UPDATED, UNCHANGED, SKIPPED, FAILED }
+
+    private static final Logger logger = LoggerFactory.getLogger(AiAnalyticsPoller.class);
+
+    private static final ParameterizedTypeReference<Map<String, Integer>> BULK_RESPONSE_TYPE = new ParameterizedTypeReference<>() {};
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final AvailabilityService availabilityService;
+
+    @Value("${ai.analytics.base.url:http://localhost:8081/ai-analytics}")
+    private String aiAnalyticsBaseUrl;
+
+    @Value("${ai.analytics.polling.enabled:true}")
+    private boolean aiPollingEnabled;
+
+    @Value("${ai.analytics.polling.concurrency:8}")
+    private int concurrency;
+
+    @Value("${ai.analytics.polling.jitter-ms:2000}")
+    private long jitterMs;
+
+    @Value("${ai.analytics.polling.cycle-timeout-ms:120000}")
+    private long cycleTimeoutMs;
+
+    @Value("${ai.analytics.polling.bulk.enabled:true}")
+    private boolean bulkEnabled;
+
+    @Value("${ai.analytics.polling.bulk.batch-size:200}")
+    private int bulkBatchSize;
+
+    @Value("${ai.analytics.polling.adaptive.enabled:true}")
+    private boolean adaptiveEnabled;
+
+    @Value("${ai.analytics.polling.adaptive.min-interval-ms:30000}")
+    private long adaptiveMinIntervalMs;
+
+    @Value("${ai.analytics.polling.adaptive.max-interval-ms:900000}")
+    private long adaptiveMaxIntervalMs;
+
+    @Value("${ai.analytics.polling.adaptive.volatility-target:0.05}")
+    private double adaptiveVolatilityTarget;
+
+    @Value("${ai.analytics.polling.adaptive.max-lots-per-tick:1000}")
+    private int adaptiveMaxLotsPerTick;
+
+    @Value("${ai.analytics.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${ai.analytics.read-timeout-ms:5000}")
+    private int readTimeoutMs;
+
+    private RestTemplate restTemplate;
+    private ScheduledThreadPoolExecutor executor;
+    private AdaptivePollSchedule schedule;
+    private final AtomicBoolean cycleRunning = new AtomicBoolean();
+
+    @Autowired
+    public AiAnalyticsPoller(ParkingLotRepository parkingLotRepository, AvailabilityService availabilityService) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.availabilityService = availabilityService;
+    }
+
+    @PostConstruct
+    void start() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        restTemplate = new RestTemplate(requestFactory);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, "ai-analytics-poller-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+
+        schedule = new AdaptivePollSchedule(adaptiveMinIntervalMs, adaptiveMaxIntervalMs, adaptiveVolatilityTarget);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Polls every eligible lot. With adaptive scheduling enabled it only refreshes the set of lots the
+     * adaptive schedule tracks, and {@link #pollDueParkingLots} does the polling.
+     */
+    @Scheduled(fixedRateString = "${ai.analytics.polling.fixedRate:300000}") // 5 minutes default
+    public void pollAllParkingLots() {
+        if (!aiPollingEnabled) {
+            logger.debug("AI Analytics polling is disabled.");
+            return;
+        }
+        if (adaptiveEnabled) {
+            List<ParkingLot> eligibleParkingLots = parkingLotRepository.findEligibleForAiPolling(AvailabilityTrackingMethod.CAMERA_AI);
+            schedule.sync(eligibleParkingLots.stream().map(ParkingLot::getId).toList(), System.currentTimeMillis());
+            logger.debug("Adaptive AI Analytics schedule tracks {} parking lots.", schedule.size());
+            return;
+        }
+        if (!cycleRunning.compareAndSet(false, true)) {
+            logger.warn("Previous AI Analytics polling cycle is still running. Skipping this cycle.");
+            return;
+        }
+
+        try {
+            List<ParkingLot> eligibleParkingLots = parkingLotRepository.findEligibleForAiPolling(AvailabilityTrackingMethod.CAMERA_AI);
+            if (eligibleParkingLots.isEmpty()) {
+                logger.info("No parking lots are currently eligible for AI Analytics polling.");
+                cycleRunning.set(false);
+                return;
+            }
+            runCycle(eligibleParkingLots, jitterMs, () -> { });
+        } catch (RuntimeException e) {
+            cycleRunning.set(false);
+            logger.error("Failed to start AI Analytics polling cycle: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ai.analytics.polling.adaptive.tick-ms:5000}")
+    public void pollDueParkingLots() {
+        if (!aiPollingEnabled || !adaptiveEnabled || !cycleRunning.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<String> dueParkingLotIds = List.of();
+        try {
+            dueParkingLotIds = schedule.takeDue(System.currentTimeMillis(), Math.max(1, adaptiveMaxLotsPerTick));
+            if (dueParkingLotIds.isEmpty()) {
+                cycleRunning.set(false);
+                return;
+            }
+            List<String> taken = dueParkingLotIds;
+            runCycle(parkingLotRepository.findAllById(taken), 0, () -> {
+                long now = System.currentTimeMillis();
+                taken.forEach(parkingLotId -> schedule.reschedule(parkingLotId, now));
+            });
+        } catch (RuntimeException e) {
+            long now = System.currentTimeMillis();
+            dueParkingLotIds.forEach(parkingLotId -> schedule.reschedule(parkingLotId, now));
+            cycleRunning.set(false);
+            logger.error("Failed to start adaptive AI Analytics polling cycle: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Polls the lots on the poller pool and logs a summary once all polls finished or the cycle timed
+     * out. The caller must hold cycleRunning, which is released after onFinished ran.
+     */
+    private void runCycle(List<ParkingLot> parkingLots, long maxJitterMs, Runnable onFinished) {
+        long startedAt = System.nanoTime();
+        CycleSummary summary = new CycleSummary();
+        List<List<ParkingLot>> batches = new ArrayList<>();
+        int batchSize = bulkEnabled ? Math.max(1, bulkBatchSize) : 1;
+        for (int from = 0; from < parkingLots.size(); from += batchSize) {
+            batches.add(parkingLots.subList(from, Math.min(from + batchSize, parkingLots.size())));
+        }
+
+        List<CompletableFuture<Collection<PollOutcome>>> polls = new ArrayList<>(batches.size());
+        List<CompletableFuture<?>> recorded = new ArrayList<>(batches.size());
+        for (List<ParkingLot> batch : batches) {
+            long delayMs = maxJitterMs > 0 ? ThreadLocalRandom.current().nextLong(maxJitterMs) : 0;
+            CompletableFuture<Collection<PollOutcome>> poll = bulkEnabled
+                    ? submit(() -> pollBatch(batch), delayMs)
+                    : submit(() -> List.of(pollSingleParkingLot(batch.get(0).getId())), delayMs);
+            polls.add(poll);
+            recorded.add(poll.whenComplete((outcomes, error) -> {
+                if (error == null) {
+                    outcomes.forEach(summary::record);
+                } else {
+                    batch.forEach(parkingLot -> summary.record(PollOutcome.FAILED));
+                }
+            }));
+        }
+        logger.debug("Started AI Analytics polling cycle for {} parking lots in {} requests with concurrency {}.",
+                parkingLots.size(), batches.size(), concurrency);
+
+        // Summarized asynchronously so the shared scheduler thread is never blocked by a slow cycle
+        CompletableFuture.allOf(recorded.toArray(new CompletableFuture[0]))
+                .orTimeout(cycleTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, error) -> {
+                    try {
+                        if (error instanceof TimeoutException) {
+                            polls.forEach(poll -> poll.cancel(true));
+                            logger.warn("AI Analytics polling cycle exceeded {} ms. Cancelled the remaining polls.", cycleTimeoutMs);
+                        }
+                        logger.info("AI Analytics polling cycle finished in {} ms: {} lots, {} updated, {} unchanged, {} skipped, {} failed.",
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), parkingLots.size(),
+                                summary.updated.get(), summary.unchanged.get(), summary.skipped.get(), summary.failed.get());
+                        onFinished.run();
+                    } finally {
+                        cycleRunning.set(false);
+                    }
+                });
+    }
+
+    /**
+     * Polls one lot immediately on the poller pool and waits for the outcome.
+     */
+    public PollOutcome pollNow(String parkingLotId) {
+        return submit(() -> pollSingleParkingLot(parkingLotId), 0).join();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> poll, long delayMs) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        var scheduled = executor.schedule(() -> {
+            try {
+                result.complete(poll.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        result.whenComplete((outcome, error) -> {
+            if (result.isCancelled()) {
+                scheduled.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Fetches the counts of a whole batch in one request and applies them together. Falls back to one
+     * request per lot when the analytics service does not implement the bulk endpoint.
+     */
+    private Collection<PollOutcome> pollBatch(List<ParkingLot> batch) {
+        String endpoint = aiAnalyticsBaseUrl + "/parking-spots/bulk";
+        List<String> parkingLotIds = batch.stream().map(ParkingLot::getId).toList();
+        try {
+            ResponseEntity<Map<String, Integer>> response = restTemplate.exchange(endpoint, HttpMethod.POST,
+                    new HttpEntity<>(new AiAnalyticsBulkRequestDTO(parkingLotIds)), BULK_RESPONSE_TYPE);
+
+            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+                logger.warn("Received non-OK response or null body from AI Analytics bulk endpoint for {} parking lots. Status: {}",
+                        batch.size(), response.getStatusCode());
+                return Collections.nCopies(batch.size(), PollOutcome.FAILED);
+            }
+            if (adaptiveEnabled) {
+                Map<String, Integer> reported = response.getBody();
+                batch.forEach(parkingLot -> {
+                    Integer emptySpots = reported.get(parkingLot.getId());
+                    if (emptySpots != null) {
+                        schedule.observe(parkingLot.getId(), emptySpots, parkingLot.getTotalSpots());
+                    }
+                });
+            }
+            return availabilityService.applyAiAnalyticsResults(batch, response.getBody()).values();
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+            logger.warn("AI Analytics service does not support bulk requests ({}). Polling {} parking lots one by one.",
+                    e.getStatusCode(), batch.size());
+            return parkingLotIds.stream().map(this::pollSingleParkingLot).toList();
+        } catch (RestClientException e) {
+            logger.error("RestClientException while bulk polling AI Analytics for {} parking lots. Error: {}",
+                    batch.size(), e.getMessage());
+            return Collections.nCopies(batch.size(), PollOutcome.FAILED);
+        } catch (Exception e) {
+            logger.error("Unexpected error while bulk polling AI Analytics for {} parking lots. Error: {}",
+                    batch.size(), e.getMessage(), e);
+            return Collections.nCopies(batch.size(), PollOutcome.FAILED);
+        }
+    }
+
+    private PollOutcome pollSingleParkingLot(String parkingLotId) {
+        String endpoint = aiAnalyticsBaseUrl + "/parking-spots";
+        try {
+            logger.debug("Calling AI analytics endpoint: {} for parking lot: {}", endpoint, parkingLotId);
+            ResponseEntity<Integer> response = restTemplate.getForEntity(endpoint, Integer.class);
+
+            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+                logger.warn("Received non-OK response or null body from AI Analytics for parking lot ID: {}. Status: {}, Body: {}",
+                        parkingLotId, response.getStatusCode(), response.getBody());
+                return PollOutcome.FAILED;
+            }
+            int detectedEmptySpots = response.getBody();
+            logger.debug("AI Analytics response for parking lot ID {}: {} empty spots.", parkingLotId, detectedEmptySpots);
+            if (adaptiveEnabled) {
+                schedule.observe(parkingLotId, detectedEmptySpots, null);
+            }
+            return availabilityService.applyAiAnalyticsResult(parkingLotId, detectedEmptySpots);
+        } catch (ResourceNotFoundException e) {
+            logger.warn("ResourceNotFoundException during AI poll for parking lot {}: {}", parkingLotId, e.getMessage());
+            return PollOutcome.SKIPPED;
+        } catch (RestClientException e) {
+            logger.error("RestClientException while polling AI Analytics for parking lot ID: {}. Error: {}",
+                    parkingLotId, e.getMessage());
+            return PollOutcome.FAILED;
+        } catch (Exception e) {
+            logger.error("Unexpected error while polling AI Analytics for parking lot ID: {}. Error: {}",
+                    parkingLotId, e.getMessage(), e);
+            return PollOutcome.FAILED;
+        }
+    }
+
+    private static final class CycleSummary {
+        final AtomicInteger updated = new AtomicInteger();
+        final AtomicInteger unchanged = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        void record(PollOutcome outcome) {
+            switch (outcome) {
+                case UPDATED -> updated.incrementAndGet();
+                case UNCHANGED -> unchanged.incrementAndGet();
+                case SKIPPED -> skipped.incrementAndGet();
+                case FAILED -> failed.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.DTOs.AvailabilityUpdateDTO;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Fans availability changes out to streaming subscribers. Each watched lot has one shared channel
+ * that replays its latest value, exists only while someone watches the lot, and never blocks the
+ * writer: a slow subscriber only ever sees the most recent value of each lot.
+ */
+@Service
+public class AvailabilityBroadcastHub implements AvailabilityChangeListener {
+
+    private static final class LotChannel {
+        final Sinks.Many<AvailabilityUpdateDTO> sink = Sinks.many().replay().latest();
+        // Guarded by this
+        AvailabilityUpdateDTO latest;
+        // Only changed inside channels.compute
+        int subscribers;
+
+        synchronized void emit(AvailabilityUpdateDTO update, boolean onlyIfEmpty) {
+            if (onlyIfEmpty && latest != null) {
+                return;
+            }
+            latest = update;
+            sink.tryEmitNext(update);
+        }
+    }
+
+    private final ConcurrentHashMap<String, LotChannel> channels = new ConcurrentHashMap<>();
+
+    @Override
+    public void onAvailabilityChanged(String parkingLotId, int spotsAvailable) {
+        LotChannel channel = channels.get(parkingLotId);
+        if (channel != null) {
+            channel.emit(new AvailabilityUpdateDTO(parkingLotId, spotsAvailable, OffsetDateTime.now()), false);
+        }
+    }
+
+    /**
+     * Streams the current value of every lot, then each change. The snapshot loader runs after the
+     * channels are registered, so no change between the snapshot and the first update is lost.
+     */
+    public Flux<AvailabilityUpdateDTO> stream(Collection<String> parkingLotIds,
+                                              Function<Collection<String>, List<AvailabilityUpdateDTO>> snapshotLoader) {
+        return Flux.defer(() -> {
+            List<String> ids = parkingLotIds.stream().distinct().toList();
+            ids.forEach(this::acquire);
+            try {
+                snapshotLoader.apply(ids).forEach(update -> {
+                    LotChannel channel = channels.get(update.getLotId());
+                    if (channel != null) {
+                        channel.emit(update, true);
+                    }
+                });
+            } catch (RuntimeException e) {
+                ids.forEach(this::release);
+                throw e;
+            }
+            List<Flux<AvailabilityUpdateDTO>> perLot = ids.stream()
+                    .map(id -> channels.get(id).sink.asFlux().onBackpressureLatest())
+                    .toList();
+            return Flux.merge(Flux.fromIterable(perLot), Math.max(1, perLot.size()), 1)
+                    .doFinally(signal -> ids.forEach(this::release));
+        });
+    }
+
+    private void acquire(String parkingLotId) {
+        channels.compute(parkingLotId, (id, channel) -> {
+            LotChannel acquired = channel != null ? channel : new LotChannel();
+            acquired.subscribers++;
+            return acquired;
+        });
+    }
+
+    private void release(String parkingLotId) {
+        channels.computeIfPresent(parkingLotId, (id, channel) -> {
+            if (--channel.subscribers > 0) {
+                return channel;
+            }
+            channel.sink.tryEmitComplete();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.licenta.Services;
+
+/**
+ * Implemented by in-memory views that track the number of free spots per parking lot.
+ * Called after a lot's spotsAvailable has been written.
+ */
+public interface AvailabilityChangeListener {
+
+    void onAvailabilityChanged(String parkingLotId, int spotsAvailable);
+}
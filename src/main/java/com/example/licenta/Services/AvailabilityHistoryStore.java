@@ -0,0 +1,338 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.DTOs.AvailabilityHistoryPointDTO;
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Models.ParkingLot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Availability history per parking lot. The last 24 hours are kept at minute resolution in a
+ * primitive ring buffer per lot, fed by availability changes. Completed 15 minute buckets are
+ * downsampled to (average, min, max) and compacted into one fixed-size binary file per lot and UTC
+ * day, so older history costs 768 bytes per lot per day and is read without touching the database.
+ */
+@Service
+public class AvailabilityHistoryStore implements AvailabilityChangeListener, ParkingLotChangeListener {
+
+    static final int RING_MINUTES = 24 * 60;
+    static final int BUCKET_MINUTES = 15;
+    static final int BUCKETS_PER_DAY = RING_MINUTES / BUCKET_MINUTES;
+    private static final int MAX_RANGE_DAYS = 31;
+    private static final short NO_DATA = -1;
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityHistoryStore.class);
+
+    @Value("${availability.history.dir:availability-history}")
+    private String historyDir;
+
+    @Value("${availability.history.retention-days:90}")
+    private int retentionDays;
+
+    private final Map<String, LotHistory> histories = new ConcurrentHashMap<>();
+
+    /**
+     * Minute ring for one lot. A slot holds the last count seen in its minute, minutes without a
+     * change carry the previous count forward.
+     */
+    private static final class LotHistory {
+        final int[] slotMinute = new int[RING_MINUTES];
+        final short[] slotValue = new short[RING_MINUTES];
+        // Bucket-aligned minute the ring started recording at, earlier minutes are only on disk
+        final int firstMinute;
+        // Latest record pushed out of the ring, still needed to carry a count forward
+        int evictedMinute = Integer.MIN_VALUE;
+        short evictedValue = NO_DATA;
+        // First minute not yet compacted to disk, only touched by compaction
+        int archivedUpTo;
+
+        LotHistory(int currentMinute) {
+            Arrays.fill(slotMinute, Integer.MIN_VALUE);
+            firstMinute = currentMinute - Math.floorMod(currentMinute, BUCKET_MINUTES);
+            archivedUpTo = firstMinute;
+        }
+
+        synchronized void record(int minute, int spotsAvailable) {
+            int slot = Math.floorMod(minute, RING_MINUTES);
+            if (slotMinute[slot] != minute && slotMinute[slot] > evictedMinute) {
+                evictedMinute = slotMinute[slot];
+                evictedValue = slotValue[slot];
+            }
+            slotMinute[slot] = minute;
+            slotValue[slot] = (short) Math.min(Short.MAX_VALUE, Math.max(0, spotsAvailable));
+        }
+
+        /**
+         * Carried-forward count for every minute in [fromMinute, toMinute), NO_DATA before the first
+         * known change. fromMinute must still be inside the ring.
+         */
+        synchronized short[] minutes(int fromMinute, int toMinute) {
+            short[] values = new short[toMinute - fromMinute];
+            int latestBefore = evictedMinute < fromMinute ? evictedMinute : Integer.MIN_VALUE;
+            short carried = evictedMinute < fromMinute ? evictedValue : NO_DATA;
+            for (int slot = 0; slot < RING_MINUTES; slot++) {
+                int minute = slotMinute[slot];
+                if (minute < fromMinute && minute > latestBefore) {
+                    latestBefore = minute;
+                    carried = slotValue[slot];
+                }
+            }
+            for (int minute = fromMinute; minute < toMinute; minute++) {
+                int slot = Math.floorMod(minute, RING_MINUTES);
+                if (slotMinute[slot] == minute) {
+                    carried = slotValue[slot];
+                }
+                values[minute - fromMinute] = carried;
+            }
+            return values;
+        }
+    }
+
+    @Override
+    public void onAvailabilityChanged(String parkingLotId, int spotsAvailable) {
+        int minute = currentMinute();
+        histories.computeIfAbsent(parkingLotId, id -> new LotHistory(minute)).record(minute, spotsAvailable);
+    }
+
+    /**
+     * History between from and to. The part covered by the in-memory ring comes back per minute, older
+     * parts per 15 minute bucket from disk. Minutes before the first known count are left out.
+     */
+    public List<AvailabilityHistoryPointDTO> getHistory(String parkingLotId, OffsetDateTime from, OffsetDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidDataException("History start must be before its end.");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new InvalidDataException("History range cannot exceed " + MAX_RANGE_DAYS + " days.");
+        }
+        int currentMinute = currentMinute();
+        int fromMinute = toEpochMinute(from);
+        int toMinute = Math.min(toEpochMinute(to), currentMinute + 1);
+        List<AvailabilityHistoryPointDTO> points = new ArrayList<>();
+        if (fromMinute >= toMinute) {
+            return points;
+        }
+
+        LotHistory history = histories.get(parkingLotId);
+        // First minute served from the ring, everything before it comes from the day files
+        int ringStart = history != null
+                ? Math.max(currentMinute - RING_MINUTES + 1, history.firstMinute)
+                : toMinute;
+
+        if (fromMinute < ringStart) {
+            int archiveTo = Math.min(ringStart, toMinute);
+            int firstBucket = fromMinute - Math.floorMod(fromMinute, BUCKET_MINUTES);
+            for (int bucketMinute = firstBucket; bucketMinute < archiveTo; ) {
+                LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(bucketMinute, RING_MINUTES));
+                float[] buckets = readDay(parkingLotId, day);
+                int dayStart = Math.toIntExact(day.toEpochDay() * RING_MINUTES);
+                for (; bucketMinute < archiveTo && bucketMinute < dayStart + RING_MINUTES; bucketMinute += BUCKET_MINUTES) {
+                    int bucket = (bucketMinute - dayStart) / BUCKET_MINUTES;
+                    if (buckets != null && buckets[bucket * 3 + 1] >= 0) {
+                        points.add(new AvailabilityHistoryPointDTO(toDateTime(bucketMinute), BUCKET_MINUTES,
+                                (double) buckets[bucket * 3], (int) buckets[bucket * 3 + 1], (int) buckets[bucket * 3 + 2]));
+                    }
+                }
+            }
+        }
+
+        if (history != null && ringStart < toMinute) {
+            int start = Math.max(ringStart, fromMinute);
+            short[] values = history.minutes(start, toMinute);
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != NO_DATA) {
+                    points.add(new AvailabilityHistoryPointDTO(toDateTime(start + i), 1,
+                            (double) values[i], (int) values[i], (int) values[i]));
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Downsamples every completed 15 minute bucket still only held in memory and merges it into the
+     * lot's day file.
+     */
+    @Scheduled(fixedDelayString = "${availability.history.compaction.fixedDelay:900000}")
+    public void compact() {
+        int currentMinute = currentMinute();
+        int completedUpTo = currentMinute - Math.floorMod(currentMinute, BUCKET_MINUTES);
+        int compactedLots = 0;
+        for (Map.Entry<String, LotHistory> entry : histories.entrySet()) {
+            String parkingLotId = entry.getKey();
+            LotHistory history = entry.getValue();
+            if (!SAFE_ID.matcher(parkingLotId).matches()) {
+                continue;
+            }
+            int from = Math.max(history.archivedUpTo, completedUpTo - RING_MINUTES + BUCKET_MINUTES);
+            if (from >= completedUpTo) {
+                continue;
+            }
+            try {
+                short[] minutes = history.minutes(from, completedUpTo);
+                archive(parkingLotId, from, minutes);
+                history.archivedUpTo = completedUpTo;
+                compactedLots++;
+            } catch (IOException e) {
+                logger.error("Failed to compact availability history of parking lot {}: {}", parkingLotId, e.getMessage());
+            }
+        }
+        if (compactedLots > 0) {
+            logger.debug("Compacted availability history of {} parking lots.", compactedLots);
+        }
+    }
+
+    @Scheduled(cron = "${availability.history.retention.cron:0 30 3 * * *}")
+    public void deleteExpiredHistory() {
+        Path root = Paths.get(historyDir);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        String oldestKept = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays) + ".bin";
+        try (DirectoryStream<Path> lots = Files.newDirectoryStream(root)) {
+            for (Path lotDir : lots) {
+                try (DirectoryStream<Path> days = Files.newDirectoryStream(lotDir, "*.bin")) {
+                    for (Path day : days) {
+                        if (day.getFileName().toString().compareTo(oldestKept) < 0) {
+                            Files.deleteIfExists(day);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to delete expired availability history: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void compactOnShutdown() {
+        compact();
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        histories.remove(parkingLotId);
+    }
+
+    private void archive(String parkingLotId, int fromMinute, short[] minutes) throws IOException {
+        int toMinute = fromMinute + minutes.length;
+        for (int dayStart = fromMinute - Math.floorMod(fromMinute, RING_MINUTES); dayStart < toMinute; dayStart += RING_MINUTES) {
+            LocalDate day = LocalDate.ofEpochDay(dayStart / RING_MINUTES);
+            float[] buckets = readDay(parkingLotId, day);
+            if (buckets == null) {
+                buckets = new float[BUCKETS_PER_DAY * 3];
+                for (int bucket = 0; bucket < BUCKETS_PER_DAY; bucket++) {
+                    buckets[bucket * 3 + 1] = NO_DATA;
+                    buckets[bucket * 3 + 2] = NO_DATA;
+                }
+            }
+            int start = Math.max(fromMinute, dayStart);
+            int end = Math.min(toMinute, dayStart + RING_MINUTES);
+            for (int bucketMinute = start; bucketMinute < end; bucketMinute += BUCKET_MINUTES) {
+                int sum = 0, count = 0, min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+                for (int minute = bucketMinute; minute < bucketMinute + BUCKET_MINUTES && minute < end; minute++) {
+                    short value = minutes[minute - fromMinute];
+                    if (value != NO_DATA) {
+                        sum += value;
+                        count++;
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                }
+                if (count > 0) {
+                    int bucket = (bucketMinute - dayStart) / BUCKET_MINUTES;
+                    buckets[bucket * 3] = (float) sum / count;
+                    buckets[bucket * 3 + 1] = min;
+                    buckets[bucket * 3 + 2] = max;
+                }
+            }
+            writeDay(parkingLotId, day, buckets);
+        }
+    }
+
+    /**
+     * Day file layout: per bucket short min, short max, float average; min is -1 for buckets without data.
+     * Returned as {average, min, max} triplets, or null when there is no file.
+     */
+    private float[] readDay(String parkingLotId, LocalDate day) {
+        if (!SAFE_ID.matcher(parkingLotId).matches()) {
+            return null;
+        }
+        Path file = dayFile(parkingLotId, day);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        float[] buckets = new float[BUCKETS_PER_DAY * 3];
+        try (InputStream in = Files.newInputStream(file); DataInputStream data = new DataInputStream(in)) {
+            for (int bucket = 0; bucket < BUCKETS_PER_DAY; bucket++) {
+                buckets[bucket * 3 + 1] = data.readShort();
+                buckets[bucket * 3 + 2] = data.readShort();
+                buckets[bucket * 3] = data.readFloat();
+            }
+            return buckets;
+        } catch (IOException e) {
+            logger.error("Failed to read availability history file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeDay(String parkingLotId, LocalDate day, float[] buckets) throws IOException {
+        Path file = dayFile(parkingLotId, day);
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp); DataOutputStream data = new DataOutputStream(out)) {
+            for (int bucket = 0; bucket < BUCKETS_PER_DAY; bucket++) {
+                data.writeShort((int) buckets[bucket * 3 + 1]);
+                data.writeShort((int) buckets[bucket * 3 + 2]);
+                data.writeFloat(buckets[bucket * 3]);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path dayFile(String parkingLotId, LocalDate day) {
+        return Paths.get(historyDir, parkingLotId, day + ".bin");
+    }
+
+    private static int currentMinute() {
+        return (int) (System.currentTimeMillis() / 60_000L);
+    }
+
+    private static int toEpochMinute(OffsetDateTime time) {
+        return (int) Math.floorDiv(time.toEpochSecond(), 60L);
+    }
+
+    private static OffsetDateTime toDateTime(int epochMinute) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochMinute * 60L), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Exceptions.ResourceNotFoundException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Live free-spot counts per parking lot. With write-behind enabled (the default) the in-memory
+ * count is the source of truth. Changes only mark the lot dirty, and a scheduled flush writes the
+ * latest count of every dirty lot in one JDBC batch, so a burst of updates to one lot costs a single
+ * row write. The flush touches only spots_available, not updated_at. Entity saves never write the
+ * column, so editing a lot cannot overwrite the live count with the one it was loaded with.
+ * <p>
+ * Write-behind assumes a single application instance owns the counts. Set
+ * availability.write-behind.enabled=false to write every change through to the database instead.
+ */
+@Service
+public class AvailabilityStore implements ParkingLotChangeListener {
+
+    private static final int UNINITIALIZED = Integer.MIN_VALUE;
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityStore.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<AvailabilityChangeListener> availabilityChangeListeners;
+
+    @Value("${availability.write-behind.enabled:true}")
+    private boolean writeBehindEnabled;
+
+    private static final class LiveCount {
+        final AtomicInteger spotsAvailable;
+        volatile Integer totalSpots;
+
+        LiveCount(Integer spotsAvailable, Integer totalSpots) {
+            this.spotsAvailable = new AtomicInteger(spotsAvailable != null ? spotsAvailable : UNINITIALIZED);
+            this.totalSpots = totalSpots;
+        }
+    }
+
+    private final ConcurrentHashMap<String, LiveCount> counts = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public AvailabilityStore(ParkingLotRepository parkingLotRepository,
+                             JdbcTemplate jdbcTemplate,
+                             List<AvailabilityChangeListener> availabilityChangeListeners) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.availabilityChangeListeners = availabilityChangeListeners;
+    }
+
+    /**
+     * Live count for the lot, or null when it was never initialized. The entity is only used to seed
+     * the store the first time a lot is seen.
+     */
+    public Integer getSpotsAvailable(ParkingLot parkingLot) {
+        if (!writeBehindEnabled) {
+            return parkingLot.getSpotsAvailable();
+        }
+        int current = track(parkingLot).spotsAvailable.get();
+        return current == UNINITIALIZED ? null : current;
+    }
+
+    public int increment(ParkingLot parkingLot) {
+        if (!writeBehindEnabled) {
+            int updated = parkingLotRepository.incrementSpotsAvailable(parkingLot.getId(), OffsetDateTime.now())
+                    .orElseThrow(() -> new ResourceNotFoundException("Parking Lot not found with ID: " + parkingLot.getId()));
+            notifyListeners(parkingLot.getId(), updated);
+            return updated;
+        }
+        LiveCount count = track(parkingLot);
+        return apply(parkingLot.getId(), count, current -> clamp((current == UNINITIALIZED ? 0 : current) + 1, count.totalSpots));
+    }
+
+    public int decrement(ParkingLot parkingLot) {
+        if (!writeBehindEnabled) {
+            int updated = parkingLotRepository.decrementSpotsAvailable(parkingLot.getId(), OffsetDateTime.now())
+                    .orElseThrow(() -> new InvalidDataException("Available spots count is not initialized for this parking lot."));
+            notifyListeners(parkingLot.getId(), updated);
+            return updated;
+        }
+        LiveCount count = track(parkingLot);
+        if (count.spotsAvailable.get() == UNINITIALIZED) {
+            throw new InvalidDataException("Available spots count is not initialized for this parking lot.");
+        }
+        return apply(parkingLot.getId(), count, current -> clamp(current - 1, count.totalSpots));
+    }
+
+    /**
+     * Sets an absolute count, clamped to [0, totalSpots].
+     */
+    public int set(ParkingLot parkingLot, int spotsAvailable) {
+        if (!writeBehindEnabled) {
+            int clamped = clamp(spotsAvailable, parkingLot.getTotalSpots());
+            jdbcTemplate.update("UPDATE parking_lots SET spots_available = ?, updated_at = ? WHERE id = ?",
+                    clamped, OffsetDateTime.now(), parkingLot.getId());
+            notifyListeners(parkingLot.getId(), clamped);
+            return clamped;
+        }
+        LiveCount count = track(parkingLot);
+        return apply(parkingLot.getId(), count, current -> clamp(spotsAvailable, count.totalSpots));
+    }
+
+    /**
+     * Sets several absolute counts at once. In write-through mode they are written in one JDBC batch.
+     */
+    public int[] setAll(List<ParkingLot> parkingLots, int[] spotsAvailable) {
+        int[] updated = new int[parkingLots.size()];
+        if (writeBehindEnabled) {
+            for (int i = 0; i < updated.length; i++) {
+                updated[i] = set(parkingLots.get(i), spotsAvailable[i]);
+            }
+            return updated;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Object[]> batch = new ArrayList<>(updated.length);
+        for (int i = 0; i < updated.length; i++) {
+            ParkingLot parkingLot = parkingLots.get(i);
+            updated[i] = clamp(spotsAvailable[i], parkingLot.getTotalSpots());
+            batch.add(new Object[]{updated[i], now, parkingLot.getId()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE parking_lots SET spots_available = ?, updated_at = ? WHERE id = ?", batch);
+        for (int i = 0; i < updated.length; i++) {
+            notifyListeners(parkingLots.get(i).getId(), updated[i]);
+        }
+        return updated;
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        LiveCount count = counts.get(parkingLot.getId());
+        if (count == null) {
+            return;
+        }
+        count.totalSpots = parkingLot.getTotalSpots();
+        // Entity saves never write spots_available, only a lowered total can change the live count
+        apply(parkingLot.getId(), count, current -> current == UNINITIALIZED ? current : clamp(current, count.totalSpots));
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        counts.remove(parkingLotId);
+        dirty.remove(parkingLotId);
+    }
+
+    @Scheduled(fixedDelayString = "${availability.flush.fixedDelay:2000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String parkingLotId = it.next();
+            // Removed before reading, so a concurrent change re-marks the lot for the next flush
+            it.remove();
+            LiveCount count = counts.get(parkingLotId);
+            if (count == null) {
+                continue;
+            }
+            int current = count.spotsAvailable.get();
+            if (current != UNINITIALIZED) {
+                batch.add(new Object[]{current, parkingLotId});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE parking_lots SET spots_available = ? WHERE id = ?", batch);
+            logger.debug("Flushed availability of {} parking lots.", batch.size());
+        } catch (DataAccessException e) {
+            batch.forEach(row -> dirty.add((String) row[1]));
+            logger.error("Failed to flush availability of {} parking lots, will retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (writeBehindEnabled) {
+            flush();
+        }
+    }
+
+    private LiveCount track(ParkingLot parkingLot) {
+        LiveCount count = counts.get(parkingLot.getId());
+        if (count != null) {
+            return count;
+        }
+        return counts.computeIfAbsent(parkingLot.getId(), id -> new LiveCount(parkingLot.getSpotsAvailable(), parkingLot.getTotalSpots()));
+    }
+
+    private int apply(String parkingLotId, LiveCount count, IntUnaryOperator update) {
+        // Writers of one lot take turns, so listeners see its counts in the order they were applied
+        // and the last one notified is the current count. Readers and flushes stay lock free.
+        synchronized (count) {
+            int previous = count.spotsAvailable.get();
+            int updated = update.applyAsInt(previous);
+            count.spotsAvailable.set(updated);
+            if (previous != updated || previous == UNINITIALIZED) {
+                dirty.add(parkingLotId);
+            }
+            if (updated != UNINITIALIZED) {
+                notifyListeners(parkingLotId, updated);
+            }
+            return updated;
+        }
+    }
+
+    private void notifyListeners(String parkingLotId, int spotsAvailable) {
+        availabilityChangeListeners.forEach(listener -> listener.onAvailabilityChanged(parkingLotId, spotsAvailable));
+    }
+
+    private static int clamp(int spotsAvailable, Integer totalSpots) {
+        int clamped = Math.max(0, spotsAvailable);
+        return totalSpots == null ? clamped : Math.min(clamped, totalSpots);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.licenta.Services;
+
+import java.util.SplittableRandom;
+
+/**
+ * Occupancy over time for one parking lot, as a treap of change points. Every interval [start, end)
+ * adds +1 at start and -1 at end, and each node keeps the sum and the maximum prefix sum of its
+ * subtree, so the occupancy at any instant and the peak occupancy over any window are O(log n).
+ * Times are epoch seconds. Not thread-safe, callers lock per lot.
+ */
+public final class CapacityTimeline {
+
+    private static final int NO_PREFIX = Integer.MIN_VALUE / 2;
+
+    private static final class Node {
+        final long key;
+        final int priority;
+        int delta;
+        int sum;
+        int maxPrefix;
+        Node left;
+        Node right;
+
+        Node(long key, int priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+    private int intervals;
+
+    public void add(long start, long end) {
+        addDelta(start, 1);
+        addDelta(end, -1);
+        intervals++;
+    }
+
+    public void remove(long start, long end) {
+        addDelta(start, -1);
+        addDelta(end, 1);
+        intervals--;
+    }
+
+    public int size() {
+        return intervals;
+    }
+
+    /**
+     * Highest number of overlapping intervals at any instant in [start, end).
+     */
+    public int maxOccupancy(long start, long end) {
+        Node[] upToStart = split(root, start + 1);
+        Node[] window = split(upToStart[1], end);
+        int atStart = sum(upToStart[0]);
+        int peak = atStart + Math.max(0, maxPrefix(window[0]));
+        root = merge(upToStart[0], merge(window[0], window[1]));
+        return peak;
+    }
+
+    private void addDelta(long key, int delta) {
+        Node[] lessAndRest = split(root, key);
+        Node[] matchAndGreater = split(lessAndRest[1], key + 1);
+        Node node = matchAndGreater[0];
+        if (node == null) {
+            node = new Node(key, random.nextInt());
+        }
+        node.delta += delta;
+        if (node.delta == 0) {
+            node = null;
+        } else {
+            pull(node);
+        }
+        root = merge(merge(lessAndRest[0], node), matchAndGreater[1]);
+    }
+
+    /**
+     * Splits into keys below key and keys at or above it.
+     */
+    private static Node[] split(Node node, long key) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (node.key < key) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            pull(node);
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        pull(node);
+        return new Node[]{parts[0], node};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            pull(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        pull(right);
+        return right;
+    }
+
+    private static void pull(Node node) {
+        int leftSum = sum(node.left);
+        node.sum = leftSum + node.delta + sum(node.right);
+        node.maxPrefix = Math.max(maxPrefix(node.left),
+                Math.max(leftSum + node.delta, leftSum + node.delta + maxPrefix(node.right)));
+    }
+
+    private static int sum(Node node) {
+        return node == null ? 0 : node.sum;
+    }
+
+    private static int maxPrefix(Node node) {
+        return node == null ? NO_PREFIX : node.maxPrefix;
+    }
+}
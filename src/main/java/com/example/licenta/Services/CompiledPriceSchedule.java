@@ -0,0 +1,224 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.ParkingLot.DayOfWeek;
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Models.PriceInterval;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parking lot's fixed price intervals compiled into runs over the minutes of the week, Monday
+ * 00:00 first. Each run records the interval that applies from its first minute on, the first
+ * matching interval in list order, as the per-step lookup in ReservationService used to pick it.
+ * Pricing a period walks from one interval end to the next without allocating.
+ */
+public final class CompiledPriceSchedule {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+    private static final long NANOS_PER_DAY = MINUTES_PER_DAY * NANOS_PER_MINUTE;
+    // 1970-01-01 was a Thursday, three days after a Monday
+    private static final long EPOCH_MINUTE_OF_WEEK = 3L * MINUTES_PER_DAY;
+
+    private static final int NO_INTERVAL = -1;
+
+    private final int[] runStarts;
+    private final int[] runIntervals;
+    private final int[] intervalEndMinutes;
+    private final double[] intervalPrices;
+    private final int[] intervalDurations;
+    private final long freeTimeNanos;
+    private final OffsetDateTime compiledFrom;
+
+    /**
+     * Minutes of the week, end exclusive, over which one price interval applies. Minutes that no
+     * interval covers form runs without a price.
+     */
+    public static final class Run {
+        private final int startMinuteOfWeek;
+        private final int endMinuteOfWeek;
+        private final Double price;
+        private final int durationMinutes;
+
+        private Run(int startMinuteOfWeek, int endMinuteOfWeek, Double price, int durationMinutes) {
+            this.startMinuteOfWeek = startMinuteOfWeek;
+            this.endMinuteOfWeek = endMinuteOfWeek;
+            this.price = price;
+            this.durationMinutes = durationMinutes;
+        }
+
+        public int getStartMinuteOfWeek() {
+            return startMinuteOfWeek;
+        }
+
+        public int getEndMinuteOfWeek() {
+            return endMinuteOfWeek;
+        }
+
+        public Double getPrice() {
+            return price;
+        }
+
+        // 0 when the price is per hour, prorated by the minute
+        public int getDurationMinutes() {
+            return durationMinutes;
+        }
+    }
+
+    private CompiledPriceSchedule(int[] runStarts, int[] runIntervals, int[] intervalEndMinutes, double[] intervalPrices,
+                                  int[] intervalDurations, long freeTimeNanos, OffsetDateTime compiledFrom) {
+        this.runStarts = runStarts;
+        this.runIntervals = runIntervals;
+        this.intervalEndMinutes = intervalEndMinutes;
+        this.intervalPrices = intervalPrices;
+        this.intervalDurations = intervalDurations;
+        this.freeTimeNanos = freeTimeNanos;
+        this.compiledFrom = compiledFrom;
+    }
+
+    public static CompiledPriceSchedule compile(ParkingLot parkingLot) {
+        List<PriceInterval> intervals = parkingLot.getPriceIntervals() != null ? parkingLot.getPriceIntervals() : List.of();
+        int count = intervals.size();
+        int[] startMinutes = new int[count];
+        int[] endMinutes = new int[count];
+        boolean[][] days = new boolean[count][7];
+        double[] prices = new double[count];
+        int[] durations = new int[count];
+        for (int i = 0; i < count; i++) {
+            PriceInterval interval = intervals.get(i);
+            startMinutes[i] = parseMinutes(interval.getStartTime());
+            endMinutes[i] = parseMinutes(interval.getEndTime());
+            if (interval.getDays() != null) {
+                for (DayOfWeek day : interval.getDays()) {
+                    days[i][day.ordinal()] = true;
+                }
+            }
+            prices[i] = interval.getPrice() != null ? interval.getPrice() : 0.0;
+            durations[i] = interval.getDuration() != null ? interval.getDuration() : 0;
+        }
+
+        List<int[]> runs = new ArrayList<>();
+        int previous = Integer.MIN_VALUE;
+        for (int minuteOfWeek = 0; minuteOfWeek < MINUTES_PER_WEEK; minuteOfWeek++) {
+            int day = minuteOfWeek / MINUTES_PER_DAY;
+            int minuteOfDay = minuteOfWeek % MINUTES_PER_DAY;
+            int applicable = NO_INTERVAL;
+            for (int i = 0; i < count; i++) {
+                if (days[i][day] && covers(startMinutes[i], endMinutes[i], minuteOfDay)) {
+                    applicable = i;
+                    break;
+                }
+            }
+            if (applicable != previous) {
+                runs.add(new int[]{minuteOfWeek, applicable});
+                previous = applicable;
+            }
+        }
+
+        int[] runStarts = new int[runs.size()];
+        int[] runIntervals = new int[runs.size()];
+        for (int i = 0; i < runs.size(); i++) {
+            runStarts[i] = runs.get(i)[0];
+            runIntervals[i] = runs.get(i)[1];
+        }
+        long freeTimeNanos = parkingLot.isHasFreeTime() && parkingLot.getFreeTimeMinutes() != null && parkingLot.getFreeTimeMinutes() > 0
+                ? parkingLot.getFreeTimeMinutes() * NANOS_PER_MINUTE
+                : 0;
+        return new CompiledPriceSchedule(runStarts, runIntervals, endMinutes, prices, durations, freeTimeNanos,
+                parkingLot.getUpdatedAt());
+    }
+
+    /**
+     * Price of parking from startTime to endTime. Wall-clock times are read in the offset of startTime.
+     */
+    public double priceFor(OffsetDateTime startTime, OffsetDateTime endTime) {
+        long offsetNanos = startTime.getOffset().getTotalSeconds() * 1_000_000_000L;
+        long current = toEpochNanos(startTime) + offsetNanos + freeTimeNanos;
+        long end = toEpochNanos(endTime) + offsetNanos;
+        if (current >= end) {
+            return 0.0;
+        }
+
+        double totalPrice = 0.0;
+        while (current < end) {
+            int interval = intervalAt(minuteOfWeek(current));
+            if (interval == NO_INTERVAL) {
+                throw new InvalidDataException("No price interval found for the given time and day");
+            }
+
+            // The interval runs until its end time today, or tomorrow if that is not after now
+            long intervalEnd = current - Math.floorMod(current, NANOS_PER_DAY) + intervalEndMinutes[interval] * NANOS_PER_MINUTE;
+            if (intervalEnd <= current) {
+                intervalEnd += NANOS_PER_DAY;
+            }
+            if (intervalEnd > end) {
+                intervalEnd = end;
+            }
+            long intervalMinutes = (intervalEnd - current) / NANOS_PER_MINUTE;
+
+            if (intervalDurations[interval] > 0) {
+                double durationUnits = Math.ceil((double) intervalMinutes / intervalDurations[interval]);
+                totalPrice += durationUnits * intervalPrices[interval];
+            } else {
+                totalPrice += (intervalMinutes / 60.0) * intervalPrices[interval];
+            }
+
+            current = intervalEnd;
+        }
+        return totalPrice;
+    }
+
+    public List<Run> getRuns() {
+        List<Run> runs = new ArrayList<>(runStarts.length);
+        for (int i = 0; i < runStarts.length; i++) {
+            int end = i + 1 < runStarts.length ? runStarts[i + 1] : MINUTES_PER_WEEK;
+            int interval = runIntervals[i];
+            runs.add(interval == NO_INTERVAL
+                    ? new Run(runStarts[i], end, null, 0)
+                    : new Run(runStarts[i], end, intervalPrices[interval], intervalDurations[interval]));
+        }
+        return runs;
+    }
+
+    /**
+     * Whether the lot has no price intervals at all, in which case every period fails to price.
+     */
+    public boolean isEmpty() {
+        return intervalPrices.length == 0;
+    }
+
+    public OffsetDateTime getCompiledFrom() {
+        return compiledFrom;
+    }
+
+    private int intervalAt(int minuteOfWeek) {
+        int run = Arrays.binarySearch(runStarts, minuteOfWeek);
+        return runIntervals[run >= 0 ? run : -run - 2];
+    }
+
+    private static int minuteOfWeek(long localEpochNanos) {
+        return (int) Math.floorMod(Math.floorDiv(localEpochNanos, NANOS_PER_MINUTE) + EPOCH_MINUTE_OF_WEEK, (long) MINUTES_PER_WEEK);
+    }
+
+    private static long toEpochNanos(OffsetDateTime dateTime) {
+        return dateTime.toEpochSecond() * 1_000_000_000L + dateTime.getNano();
+    }
+
+    private static boolean covers(int start, int end, int minuteOfDay) {
+        if (end < start) {
+            return minuteOfDay >= start || minuteOfDay < end;
+        }
+        return minuteOfDay >= start && minuteOfDay < end;
+    }
+
+    private static int parseMinutes(String time) {
+        String[] parts = time.split(":");
+        return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Models.ParkingLot;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Source of the price surface of a DYNAMIC parking lot, queried in the background by
+ * {@link DynamicPriceSurfaceService} rather than on the request path.
+ */
+public interface DynamicPriceModel {
+
+    /**
+     * Predicts the lot's hourly rate and how it varies with the hour of the day and the occupancy.
+     * May block; failures are thrown and the lot is retried later.
+     */
+    Prediction predict(ParkingLot parkingLot, int occupancyBands);
+
+    @Getter
+    @AllArgsConstructor
+    final class Prediction {
+        // RON per hour at multiplier 1
+        private final double baseHourlyRate;
+        // 24 entries each, local hour of the day
+        private final double[] weekdayHourMultipliers;
+        private final double[] weekendHourMultipliers;
+        // One entry per occupancy band, emptiest first
+        private final double[] occupancyBandMultipliers;
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Enum.ParkingLot.PricingType;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hourly rates of DYNAMIC parking lots by hour of the week and occupancy band, kept in memory so
+ * quotes never wait on the price model. A background thread asks the model for a few lots per
+ * tick, never-computed and stale surfaces first, which caps the rate of model calls. Until a lot
+ * has a model surface it is priced from {@link LocalDynamicPriceModel}. Future hours are priced in
+ * the occupancy band the {@link OccupancyForecaster} expects, the next hour in the live one.
+ */
+@Service
+public class DynamicPriceSurfaceService implements PricingStrategy, ParkingLotChangeListener {
+
+    public static final String NAME = "surface";
+
+    static final int HOURS_PER_WEEK = 7 * 24;
+    // 1970-01-01 was a Thursday, 72 hours after a Monday
+    private static final long EPOCH_HOUR_OF_WEEK = 72;
+    private static final int WEEKEND_FIRST_HOUR = 5 * 24;
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamicPriceSurfaceService.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final OccupancyForecaster occupancyForecaster;
+    private final AvailabilityStore availabilityStore;
+    private final ObjectProvider<OpenAiChatModel> chatModel;
+    private final ObjectMapper objectMapper;
+    private final String modelName;
+    private final DynamicPriceModel fallbackModel;
+    private final int occupancyBands;
+    // Resolved on startup and only while this strategy is selected, so other strategies need no OpenAI setup
+    private DynamicPriceModel model;
+
+    @Value("${dynamic-pricing.refresh.tick-ms:10000}")
+    private long tickMs;
+
+    @Value("${dynamic-pricing.refresh.lots-per-tick:2}")
+    private int lotsPerTick;
+
+    @Value("${dynamic-pricing.max-age-ms:21600000}")
+    private long maxAgeMs;
+
+    @Value("${pricing.strategy.dynamic:rules}")
+    private String dynamicStrategy;
+
+    private static final class Surface {
+        // Rate in RON per hour, indexed by hourOfWeek * occupancyBands + band
+        final float[] hourlyRates;
+        // 0 for surfaces from the fallback model, which are always due for a refresh
+        final long computedAtMillis;
+
+        Surface(float[] hourlyRates, long computedAtMillis) {
+            this.hourlyRates = hourlyRates;
+            this.computedAtMillis = computedAtMillis;
+        }
+    }
+
+    private static final class RefreshState {
+        volatile long lastAttemptMillis;
+        volatile int consecutiveFailures;
+        // Set when the lot changed, so its surface is recomputed before it gets old
+        volatile boolean outdated;
+    }
+
+    private final Map<String, Surface> surfaces = new ConcurrentHashMap<>();
+    private final Map<String, RefreshState> refreshStates = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dynamic-price-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public DynamicPriceSurfaceService(ParkingLotRepository parkingLotRepository,
+                                      OccupancyForecaster occupancyForecaster,
+                                      AvailabilityStore availabilityStore,
+                                      ObjectProvider<OpenAiChatModel> chatModel,
+                                      ObjectMapper objectMapper,
+                                      @Value("${dynamic-pricing.model:openai}") String modelName,
+                                      @Value("${dynamic-pricing.local.base-hourly-rate:5.0}") double localBaseHourlyRate,
+                                      @Value("${dynamic-pricing.occupancy-bands:4}") int occupancyBands) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.occupancyForecaster = occupancyForecaster;
+        this.availabilityStore = availabilityStore;
+        this.occupancyBands = Math.max(1, occupancyBands);
+        this.chatModel = chatModel;
+        this.objectMapper = objectMapper;
+        this.modelName = modelName;
+        this.fallbackModel = new LocalDynamicPriceModel(localBaseHourlyRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        // The model is only worth calling while this strategy prices DYNAMIC lots
+        if (!NAME.equalsIgnoreCase(dynamicStrategy)) {
+            return;
+        }
+        model = "local".equalsIgnoreCase(modelName)
+                ? fallbackModel
+                : new OpenAiDynamicPriceModel(chatModel.getObject(), objectMapper);
+        refresher.scheduleWithFixedDelay(this::refreshDueSurfaces, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double calculatePrice(ParkingLot parkingLot, OffsetDateTime startTime, OffsetDateTime endTime) {
+        return priceFor(parkingLot, startTime, endTime);
+    }
+
+    /**
+     * Price of parking at a DYNAMIC lot from startTime to endTime, rounded to bani. Wall-clock hours
+     * are read in the offset of startTime.
+     */
+    public double priceFor(ParkingLot parkingLot, OffsetDateTime startTime, OffsetDateTime endTime) {
+        Surface surface = surfaces.computeIfAbsent(parkingLot.getId(),
+                id -> buildSurface(fallbackModel.predict(parkingLot, occupancyBands), 0));
+        double liveOccupancy = liveOccupancy(parkingLot);
+        long offsetSeconds = startTime.getOffset().getTotalSeconds();
+        long nextHour = Instant.now().getEpochSecond() + 3600;
+
+        double total = 0;
+        long current = startTime.toEpochSecond();
+        long end = endTime.toEpochSecond();
+        while (current < end) {
+            long localHour = Math.floorDiv(current + offsetSeconds, 3600);
+            long segmentEnd = Math.min((localHour + 1) * 3600 - offsetSeconds, end);
+            int hourOfWeek = (int) Math.floorMod(localHour + EPOCH_HOUR_OF_WEEK, (long) HOURS_PER_WEEK);
+
+            double occupancy = liveOccupancy;
+            if (current >= nextHour) {
+                Double forecast = occupancyForecaster.predictOccupancyRate(parkingLot.getId(),
+                        OffsetDateTime.ofInstant(Instant.ofEpochSecond(current), startTime.getOffset()));
+                if (forecast != null) {
+                    occupancy = forecast;
+                }
+            }
+            int band = Math.min(occupancyBands - 1, (int) (occupancy * occupancyBands));
+            total += surface.hourlyRates[hourOfWeek * occupancyBands + band] * (segmentEnd - current) / 3600.0;
+            current = segmentEnd;
+        }
+        return BigDecimal.valueOf(total).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    /**
+     * Milliseconds since the lot's model surface was computed, or null while it is priced from the fallback.
+     */
+    public Long getSurfaceAgeMillis(String parkingLotId) {
+        Surface surface = surfaces.get(parkingLotId);
+        if (surface == null || surface.computedAtMillis == 0) {
+            return null;
+        }
+        return System.currentTimeMillis() - surface.computedAtMillis;
+    }
+
+    void refreshDueSurfaces() {
+        try {
+            long now = System.currentTimeMillis();
+            Set<String> dynamicLotIds = new HashSet<>(
+                    parkingLotRepository.findIdsByPricingTypeAndStatus(PricingType.DYNAMIC, ParkingLotStatus.ACTIVE));
+            surfaces.keySet().retainAll(dynamicLotIds);
+            refreshStates.keySet().retainAll(dynamicLotIds);
+
+            List<String> due = new ArrayList<>();
+            int stale = 0;
+            for (String parkingLotId : dynamicLotIds) {
+                Surface surface = surfaces.get(parkingLotId);
+                RefreshState state = refreshStates.computeIfAbsent(parkingLotId, id -> new RefreshState());
+                boolean isStale = surface == null || surface.computedAtMillis == 0
+                        || state.outdated || now - surface.computedAtMillis >= maxAgeMs;
+                if (!isStale) {
+                    continue;
+                }
+                stale++;
+                // Failing lots back off exponentially, up to the maximum age
+                long backoff = state.consecutiveFailures == 0 ? 0
+                        : Math.min(maxAgeMs, tickMs << Math.min(20, state.consecutiveFailures));
+                if (now - state.lastAttemptMillis >= backoff) {
+                    due.add(parkingLotId);
+                }
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+            due.sort(Comparator.comparingLong(id -> surfaces.containsKey(id) ? surfaces.get(id).computedAtMillis : -1));
+
+            int refreshed = 0;
+            int failed = 0;
+            for (ParkingLot parkingLot : parkingLotRepository.findAllById(due.subList(0, Math.min(lotsPerTick, due.size())))) {
+                RefreshState state = refreshStates.computeIfAbsent(parkingLot.getId(), id -> new RefreshState());
+                state.lastAttemptMillis = System.currentTimeMillis();
+                try {
+                    surfaces.put(parkingLot.getId(), buildSurface(model.predict(parkingLot, occupancyBands), System.currentTimeMillis()));
+                    state.outdated = false;
+                    state.consecutiveFailures = 0;
+                    refreshed++;
+                } catch (RuntimeException e) {
+                    state.consecutiveFailures++;
+                    failed++;
+                    logger.warn("Failed to compute dynamic price surface for parking lot {} ({} failures in a row): {}",
+                            parkingLot.getId(), state.consecutiveFailures, e.getMessage());
+                }
+            }
+            logger.info("Dynamic price surfaces: {} refreshed, {} failed, {} of {} lots stale before this tick.",
+                    refreshed, failed, stale, dynamicLotIds.size());
+        } catch (RuntimeException e) {
+            logger.error("Dynamic price surface refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        refreshStates.computeIfAbsent(parkingLot.getId(), id -> new RefreshState()).outdated = true;
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        surfaces.remove(parkingLotId);
+        refreshStates.remove(parkingLotId);
+    }
+
+    private Surface buildSurface(DynamicPriceModel.Prediction prediction, long computedAtMillis) {
+        float[] hourlyRates = new float[HOURS_PER_WEEK * occupancyBands];
+        for (int hourOfWeek = 0; hourOfWeek < HOURS_PER_WEEK; hourOfWeek++) {
+            double[] hourMultipliers = hourOfWeek >= WEEKEND_FIRST_HOUR
+                    ? prediction.getWeekendHourMultipliers()
+                    : prediction.getWeekdayHourMultipliers();
+            for (int band = 0; band < occupancyBands; band++) {
+                hourlyRates[hourOfWeek * occupancyBands + band] = (float) (prediction.getBaseHourlyRate()
+                        * hourMultipliers[hourOfWeek % 24] * prediction.getOccupancyBandMultipliers()[band]);
+            }
+        }
+        return new Surface(hourlyRates, computedAtMillis);
+    }
+
+    private double liveOccupancy(ParkingLot parkingLot) {
+        Integer totalSpots = parkingLot.getTotalSpots();
+        Integer spotsAvailable = availabilityStore.getSpotsAvailable(parkingLot);
+        if (totalSpots == null || totalSpots <= 0 || spotsAvailable == null) {
+            return 0;
+        }
+        return 1 - Math.max(0, Math.min(spotsAvailable, totalSpots)) / (double) totalSpots;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Models.ParkingLot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+
+/**
+ * The owner's price intervals as they are, through the compiled schedule.
+ */
+@Service
+public class FixedPricingStrategy implements PricingStrategy {
+
+    public static final String NAME = "fixed";
+
+    private final PriceScheduleCache priceScheduleCache;
+
+    @Autowired
+    public FixedPricingStrategy(PriceScheduleCache priceScheduleCache) {
+        this.priceScheduleCache = priceScheduleCache;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double calculatePrice(ParkingLot parkingLot, OffsetDateTime startTime, OffsetDateTime endTime) {
+        return priceScheduleCache.getSchedule(parkingLot).priceFor(startTime, endTime);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.licenta.Services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel of hold deadlines. Keys are bucketed by deadline tick modulo the wheel size,
+ * so scheduling and cancelling are O(1) and each advance only visits the buckets of the ticks that
+ * passed. Deadlines further out than one turn of the wheel stay in their bucket until their tick.
+ */
+public class HoldTimingWheel {
+
+    private final long tickMs;
+    private final List<Set<String>> buckets;
+    // Guarded by this. Deadline tick of every scheduled key.
+    private final Map<String, Long> deadlineTicks = new HashMap<>();
+    // Tick of the last advance. Its bucket is scanned again on the next one, so keys scheduled
+    // into it after that advance are not missed.
+    private long currentTick;
+
+    public HoldTimingWheel(long tickMs, int wheelSize, long now) {
+        this.tickMs = Math.max(1, tickMs);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < Math.max(1, wheelSize); i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.currentTick = now / this.tickMs;
+    }
+
+    /**
+     * Schedules key to expire at deadlineMs, replacing any earlier deadline. Deadlines already in
+     * the past expire on the next advance.
+     */
+    public synchronized void schedule(String key, long deadlineMs) {
+        cancel(key);
+        long tick = Math.max(currentTick, (deadlineMs + tickMs - 1) / tickMs);
+        deadlineTicks.put(key, tick);
+        bucketFor(tick).add(key);
+    }
+
+    public synchronized boolean cancel(String key) {
+        Long tick = deadlineTicks.remove(key);
+        if (tick == null) {
+            return false;
+        }
+        bucketFor(tick).remove(key);
+        return true;
+    }
+
+    /**
+     * Removes and returns every key whose deadline is at or before now.
+     */
+    public synchronized List<String> advance(long now) {
+        long targetTick = now / tickMs;
+        List<String> expired = new ArrayList<>();
+        if (targetTick < currentTick) {
+            return expired;
+        }
+        // After a long pause every bucket is due for a look, but only once
+        long lastTick = Math.min(targetTick, currentTick + buckets.size() - 1);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            Iterator<String> keys = bucketFor(tick).iterator();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (deadlineTicks.get(key) <= targetTick) {
+                    keys.remove();
+                    deadlineTicks.remove(key);
+                    expired.add(key);
+                }
+            }
+        }
+        currentTick = targetTick;
+        return expired;
+    }
+
+    public synchronized int size() {
+        return deadlineTicks.size();
+    }
+
+    private Set<String> bucketFor(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+}
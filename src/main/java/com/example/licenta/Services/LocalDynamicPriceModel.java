@@ -0,0 +1,40 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotCategory;
+import com.example.licenta.Models.ParkingLot;
+
+/**
+ * Rule-of-thumb price surface computed locally: dearer at commuter peaks and when the lot fills
+ * up, cheaper at night. Stands in for the LLM in tests and local runs, and prices lots whose
+ * surface has not been computed yet.
+ */
+public class LocalDynamicPriceModel implements DynamicPriceModel {
+
+    private final double baseHourlyRate;
+
+    public LocalDynamicPriceModel(double baseHourlyRate) {
+        this.baseHourlyRate = baseHourlyRate;
+    }
+
+    @Override
+    public Prediction predict(ParkingLot parkingLot, int occupancyBands) {
+        double[] weekday = new double[24];
+        double[] weekend = new double[24];
+        for (int hour = 0; hour < 24; hour++) {
+            if (hour < 6) {
+                weekday[hour] = 0.6;
+            } else if ((hour >= 8 && hour < 10) || (hour >= 16 && hour < 19)) {
+                weekday[hour] = 1.3;
+            } else {
+                weekday[hour] = 1.0;
+            }
+            weekend[hour] = hour >= 10 && hour < 20 ? 1.15 : 0.8;
+        }
+        double[] bands = new double[occupancyBands];
+        for (int band = 0; band < occupancyBands; band++) {
+            bands[band] = occupancyBands > 1 ? 0.9 + 0.6 * band / (occupancyBands - 1) : 1.0;
+        }
+        double rate = parkingLot.getCategory() == ParkingLotCategory.PRIVATE ? baseHourlyRate * 1.2 : baseHourlyRate;
+        return new Prediction(rate, weekday, weekend, bands);
+    }
+}
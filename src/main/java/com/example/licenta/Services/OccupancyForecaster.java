@@ -0,0 +1,232 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.DTOs.AvailabilityHistoryPointDTO;
+import com.example.licenta.DTOs.OccupancyForecastDTO;
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Enum.Reservation.ReservationStatus;
+import com.example.licenta.Exceptions.ResourceNotFoundException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.example.licenta.Repositories.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-lot occupancy forecasts served from memory. A background job fits an hour-of-week profile of
+ * the occupancy rate for every active lot, from the recorded availability history where it exists
+ * and from paid and active reservations otherwise, and blends it into the previous profile with
+ * exponential smoothing. At query time the profile is corrected by the lot's current deviation from
+ * it, which decays the further ahead the forecast looks.
+ */
+@Service
+public class OccupancyForecaster implements AvailabilityChangeListener, ParkingLotChangeListener {
+
+    static final int HOURS_PER_WEEK = 7 * 24;
+    // Minutes of recorded history a slot needs before it is preferred over reservations
+    private static final int MIN_HISTORY_MINUTES = 60;
+    private static final double RESIDUAL_SMOOTHING = 0.5;
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyForecaster.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final ReservationRepository reservationRepository;
+    private final AvailabilityHistoryStore historyStore;
+
+    @Value("${forecast.zone:Europe/Bucharest}")
+    private ZoneId zone;
+
+    @Value("${forecast.training.weeks:4}")
+    private int trainingWeeks;
+
+    @Value("${forecast.seasonal-smoothing:0.3}")
+    private double seasonalSmoothing;
+
+    @Value("${forecast.residual-decay-per-hour:0.7}")
+    private double residualDecayPerHour;
+
+    private static final class LotModel {
+        final float[] profile;
+        final int totalSpots;
+        final OffsetDateTime trainedAt;
+        // Smoothed difference between the live occupancy and the profile, and when it was last seen
+        volatile double residual;
+        volatile long residualAtMillis;
+
+        LotModel(float[] profile, int totalSpots, OffsetDateTime trainedAt, double residual, long residualAtMillis) {
+            this.profile = profile;
+            this.totalSpots = totalSpots;
+            this.trainedAt = trainedAt;
+            this.residual = residual;
+            this.residualAtMillis = residualAtMillis;
+        }
+    }
+
+    private final Map<String, LotModel> models = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OccupancyForecaster(ParkingLotRepository parkingLotRepository,
+                               ReservationRepository reservationRepository,
+                               AvailabilityHistoryStore historyStore) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.reservationRepository = reservationRepository;
+        this.historyStore = historyStore;
+    }
+
+    public OccupancyForecastDTO forecast(String parkingLotId, OffsetDateTime at) {
+        LotModel model = models.get(parkingLotId);
+        if (model == null) {
+            throw new ResourceNotFoundException("No occupancy forecast available for parking lot with ID: " + parkingLotId);
+        }
+        double occupancy = occupancyRate(model, at);
+        int expectedSpotsAvailable = (int) Math.round(model.totalSpots * (1 - occupancy));
+        return new OccupancyForecastDTO(parkingLotId, at, occupancy, expectedSpotsAvailable, model.totalSpots, model.trainedAt);
+    }
+
+    /**
+     * Forecast occupancy rate of the lot at the given time, or null while the lot has no trained model.
+     */
+    public Double predictOccupancyRate(String parkingLotId, OffsetDateTime at) {
+        LotModel model = models.get(parkingLotId);
+        return model != null ? occupancyRate(model, at) : null;
+    }
+
+    @Override
+    public void onAvailabilityChanged(String parkingLotId, int spotsAvailable) {
+        LotModel model = models.get(parkingLotId);
+        if (model == null || model.totalSpots <= 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        double occupancy = 1 - Math.min(spotsAvailable, model.totalSpots) / (double) model.totalSpots;
+        double deviation = occupancy - model.profile[hourOfWeek(now)];
+        synchronized (model) {
+            double hoursSince = Math.max(0, (now.toEpochMilli() - model.residualAtMillis) / 3_600_000.0);
+            double decayed = model.residual * Math.pow(residualDecayPerHour, hoursSince);
+            model.residual = RESIDUAL_SMOOTHING * deviation + (1 - RESIDUAL_SMOOTHING) * decayed;
+            model.residualAtMillis = now.toEpochMilli();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${forecast.training.fixedDelay:3600000}", initialDelayString = "${forecast.training.initialDelay:60000}")
+    public void train() {
+        long startedAt = System.nanoTime();
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime windowStart = now.minusWeeks(trainingWeeks).truncatedTo(ChronoUnit.HOURS);
+
+        // Minutes each hour-of-week slot occurs in the window, the denominator for reservation occupancy
+        double[] slotMinutes = new double[HOURS_PER_WEEK];
+        for (Instant hour = windowStart.toInstant(); hour.isBefore(now.toInstant()); hour = hour.plus(1, ChronoUnit.HOURS)) {
+            slotMinutes[hourOfWeek(hour)] += 60;
+        }
+
+        Map<String, double[]> reservedMinutesByLot = new HashMap<>();
+        List<Object[]> intervals = reservationRepository.findOccupancyIntervals(
+                List.of(ReservationStatus.PAID, ReservationStatus.ACTIVE), windowStart, now);
+        for (Object[] interval : intervals) {
+            OffsetDateTime start = (OffsetDateTime) interval[1];
+            OffsetDateTime end = interval[2] != null ? (OffsetDateTime) interval[2] : now;
+            addOccupiedMinutes(reservedMinutesByLot.computeIfAbsent((String) interval[0], id -> new double[HOURS_PER_WEEK]),
+                    start.isBefore(windowStart) ? windowStart.toInstant() : start.toInstant(),
+                    end.isAfter(now) ? now.toInstant() : end.toInstant());
+        }
+
+        int trained = 0;
+        for (ParkingLot parkingLot : parkingLotRepository.findByStatus(ParkingLotStatus.ACTIVE)) {
+            Integer totalSpots = parkingLot.getTotalSpots();
+            if (totalSpots == null || totalSpots <= 0) {
+                continue;
+            }
+            try {
+                float[] fitted = fitProfile(parkingLot.getId(), totalSpots, windowStart, now, slotMinutes,
+                        reservedMinutesByLot.get(parkingLot.getId()));
+                models.compute(parkingLot.getId(), (id, previous) -> {
+                    if (previous != null) {
+                        for (int slot = 0; slot < HOURS_PER_WEEK; slot++) {
+                            fitted[slot] = (float) (seasonalSmoothing * fitted[slot] + (1 - seasonalSmoothing) * previous.profile[slot]);
+                        }
+                        return new LotModel(fitted, totalSpots, now, previous.residual, previous.residualAtMillis);
+                    }
+                    return new LotModel(fitted, totalSpots, now, 0, now.toInstant().toEpochMilli());
+                });
+                trained++;
+            } catch (RuntimeException e) {
+                logger.error("Failed to train occupancy forecast for parking lot {}: {}", parkingLot.getId(), e.getMessage());
+            }
+        }
+        logger.info("Trained occupancy forecasts for {} parking lots in {} ms.", trained,
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        models.remove(parkingLotId);
+    }
+
+    private float[] fitProfile(String parkingLotId, int totalSpots, OffsetDateTime windowStart, OffsetDateTime now,
+                               double[] slotMinutes, double[] reservedMinutes) {
+        double[] historySum = new double[HOURS_PER_WEEK];
+        double[] historyMinutes = new double[HOURS_PER_WEEK];
+        OffsetDateTime historyStart = windowStart.isBefore(now.minusDays(30)) ? now.minusDays(30) : windowStart;
+        for (AvailabilityHistoryPointDTO point : historyStore.getHistory(parkingLotId, historyStart, now)) {
+            int slot = hourOfWeek(point.getTimestamp().toInstant());
+            double occupancy = 1 - Math.min(point.getSpotsAvailable(), totalSpots) / totalSpots;
+            historySum[slot] += occupancy * point.getResolutionMinutes();
+            historyMinutes[slot] += point.getResolutionMinutes();
+        }
+
+        float[] profile = new float[HOURS_PER_WEEK];
+        for (int slot = 0; slot < HOURS_PER_WEEK; slot++) {
+            double occupancy;
+            if (historyMinutes[slot] >= MIN_HISTORY_MINUTES) {
+                occupancy = historySum[slot] / historyMinutes[slot];
+            } else if (reservedMinutes != null && slotMinutes[slot] > 0) {
+                occupancy = reservedMinutes[slot] / (slotMinutes[slot] * totalSpots);
+            } else {
+                occupancy = 0;
+            }
+            profile[slot] = (float) Math.max(0, Math.min(1, occupancy));
+        }
+        return profile;
+    }
+
+    private double occupancyRate(LotModel model, OffsetDateTime at) {
+        double hoursAhead = Math.max(0, (at.toInstant().toEpochMilli() - model.residualAtMillis) / 3_600_000.0);
+        double occupancy = model.profile[hourOfWeek(at.toInstant())]
+                + model.residual * Math.pow(residualDecayPerHour, hoursAhead);
+        return Math.max(0, Math.min(1, occupancy));
+    }
+
+    private void addOccupiedMinutes(double[] reservedMinutes, Instant start, Instant end) {
+        Instant hour = start.truncatedTo(ChronoUnit.HOURS);
+        while (hour.isBefore(end)) {
+            Instant next = hour.plus(1, ChronoUnit.HOURS);
+            Instant from = start.isAfter(hour) ? start : hour;
+            Instant to = end.isBefore(next) ? end : next;
+            reservedMinutes[hourOfWeek(hour)] += (to.toEpochMilli() - from.toEpochMilli()) / 60_000.0;
+            hour = next;
+        }
+    }
+
+    private int hourOfWeek(Instant instant) {
+        ZonedDateTime local = instant.atZone(zone);
+        return (local.getDayOfWeek().getValue() - 1) * 24 + local.getHour();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Models.ParkingLot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatModel;
+
+import java.util.List;
+
+/**
+ * Asks the OpenAI chat model for a lot's price surface in one call, as a base hourly rate and
+ * multipliers by hour of day and occupancy band.
+ */
+public class OpenAiDynamicPriceModel implements DynamicPriceModel {
+
+    private static final double MIN_MULTIPLIER = 0.2;
+    private static final double MAX_MULTIPLIER = 5.0;
+
+    private static final String SYSTEM_MESSAGE = "You are a parking price calculator for Romania. " +
+            "Given a parking lot's details, predict fair market hourly parking prices in RON (Romanian Leu). Parking is not free. " +
+            "For context, a central urban lot might charge 5-20 RON per hour, a peripheral lot a few RON per hour. " +
+            "Respond ONLY with a JSON object of this shape and no other text: " +
+            "{\"baseHourlyRate\": number, \"weekdayHourMultipliers\": [24 numbers], \"weekendHourMultipliers\": [24 numbers], " +
+            "\"occupancyBandMultipliers\": [%d numbers]}. Hour multipliers start at local hour 00 and scale the base rate " +
+            "for each hour of the day. Occupancy band multipliers scale it by how full the lot is, from the emptiest band to the fullest.";
+
+    private final OpenAiChatModel chatModel;
+    private final ObjectMapper objectMapper;
+
+    public OpenAiDynamicPriceModel(OpenAiChatModel chatModel, ObjectMapper objectMapper) {
+        this.chatModel = chatModel;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Prediction predict(ParkingLot parkingLot, int occupancyBands) {
+        String lotDetails = String.format(
+                "Parking Lot Name: %s\n" +
+                        "Parking Lot Address (is in Romania): %s\n" +
+                        "Parking Lot Category: %s\n" +
+                        "Total Spots: %d\n" +
+                        "Occupancy bands: %d equal bands from empty to full\n" +
+                        "Consider demand by time of day, weekdays versus weekends, occupancy and the lot's location.",
+                parkingLot.getName(),
+                parkingLot.getAddress(),
+                parkingLot.getCategory() != null ? parkingLot.getCategory().name() : "N/A",
+                parkingLot.getTotalSpots() != null ? parkingLot.getTotalSpots() : 0,
+                occupancyBands
+        );
+
+        ChatResponse response = chatModel.call(new Prompt(List.of(
+                new SystemMessage(String.format(SYSTEM_MESSAGE, occupancyBands)),
+                new UserMessage(lotDetails)
+        )));
+        if (response == null || response.getResult() == null || response.getResult().getOutput() == null
+                || response.getResult().getOutput().getText() == null) {
+            throw new IllegalStateException("AI model returned no price surface");
+        }
+        return parse(response.getResult().getOutput().getText(), occupancyBands);
+    }
+
+    private Prediction parse(String text, int occupancyBands) {
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            throw new IllegalStateException("AI model returned no JSON object: '" + text + "'");
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(text.substring(start, end + 1));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("AI model returned malformed JSON: " + e.getOriginalMessage());
+        }
+        double baseHourlyRate = root.path("baseHourlyRate").asDouble(Double.NaN);
+        if (!(baseHourlyRate > 0)) {
+            throw new IllegalStateException("AI model returned an invalid base hourly rate: " + root.path("baseHourlyRate"));
+        }
+        return new Prediction(baseHourlyRate,
+                multipliers(root, "weekdayHourMultipliers", 24),
+                multipliers(root, "weekendHourMultipliers", 24),
+                multipliers(root, "occupancyBandMultipliers", occupancyBands));
+    }
+
+    private double[] multipliers(JsonNode root, String field, int expected) {
+        JsonNode values = root.path(field);
+        if (!values.isArray() || values.size() != expected) {
+            throw new IllegalStateException("AI model returned " + values.size() + " " + field + ", expected " + expected);
+        }
+        double[] multipliers = new double[expected];
+        for (int i = 0; i < expected; i++) {
+            double value = values.get(i).asDouble(Double.NaN);
+            if (Double.isNaN(value)) {
+                throw new IllegalStateException("AI model returned a non-numeric value in " + field);
+            }
+            multipliers[i] = Math.max(MIN_MULTIPLIER, Math.min(MAX_MULTIPLIER, value));
+        }
+        return multipliers;
+    }
+}
@@ -25,15 +25,37 @@ public class ParkingLotAccessService {
     private final UserRepository userRepository;
     private final ParkingLotRepository parkingLotRepository;
     private final ReservationRepository reservationRepository;
+    private final ParkingLotSpatialIndex spatialIndex;
+
+    // Used when a GPS ping does not report its accuracy
+    private static final double DEFAULT_GPS_ACCURACY_METERS = 25.0;
 
     @Autowired
     public ParkingLotAccessService(UserRepository userRepository,
                                    ParkingLotRepository parkingLotRepository,
-                                   ReservationRepository reservationRepository
+                                   ReservationRepository reservationRepository,
+                                   ParkingLotSpatialIndex spatialIndex
     ) {
         this.userRepository = userRepository;
         this.parkingLotRepository = parkingLotRepository;
         this.reservationRepository = reservationRepository;
+        this.spatialIndex = spatialIndex;
+    }
+
+    /**
+     * Returns the given parking lot ID, or resolves it from the GPS ping when the client did not send one.
+     */
+    public String resolveParkingLotId(String parkingLotId, Double latitude, Double longitude, Double accuracy) {
+        if (parkingLotId != null && !parkingLotId.isBlank()) {
+            return parkingLotId;
+        }
+        if (latitude == null || longitude == null) {
+            throw new InvalidDataException("Either parkingLotId or latitude and longitude are required.");
+        }
+        double accuracyInMeters = accuracy != null && accuracy > 0 ? accuracy : DEFAULT_GPS_ACCURACY_METERS;
+        return spatialIndex.findContaining(latitude, longitude, accuracyInMeters)
+                .map(ParkingLotSpatialIndex.IndexedParkingLot::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("No active parking lot found at the given location."));
     }
 
     @Transactional
@@ -0,0 +1,36 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Models.ParkingLot;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Implemented by in-memory views over the parking lot catalog that must follow
+ * lot creations, updates and deletions. Callbacks run inside the transaction that
+ * changed the lot, so lazy associations are still loadable. Views that other requests
+ * read should read what they need right away and apply it with {@link #afterCommit},
+ * so a rolled back change never becomes visible.
+ */
+public interface ParkingLotChangeListener {
+
+    void onParkingLotSaved(ParkingLot parkingLot);
+
+    void onParkingLotDeleted(String parkingLotId);
+
+    /**
+     * Runs the action once the current transaction commits and drops it on rollback, or runs it
+     * right away outside a transaction.
+     */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.DTOs.FacetMatchDTO;
+import com.example.licenta.DTOs.FacetSearchRequestDTO;
+import com.example.licenta.DTOs.FacetSearchResultDTO;
+import com.example.licenta.Enum.ParkingLot.ParkingLotCategory;
+import com.example.licenta.Enum.ParkingLot.ParkingLotSize;
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Enum.ParkingLot.ParkingLotType;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Bitmap index over the filterable features of ACTIVE parking lots. Every lot gets a dense ordinal
+ * and every facet value keeps one bitset over those ordinals, so filters are bitset intersections
+ * and facet counts are cardinalities. Lot changes apply once they commit, and changes committed
+ * during a rebuild are replayed onto the rebuilt index.
+ */
+@Service
+public class ParkingLotFacetIndex implements ParkingLotChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParkingLotFacetIndex.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final ParkingLotSpatialIndex spatialIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Facets facets = new Facets();
+    // Guarded by lock
+    private final RebuildChangeLog<Facets> changeLog = new RebuildChangeLog<>();
+
+    private static final class Facets {
+        final Map<String, Integer> ordinalById = new HashMap<>();
+        final List<String> idByOrdinal = new ArrayList<>();
+        // Ordinals of removed lots, reused so the bitsets stay dense
+        final BitSet freeOrdinals = new BitSet();
+        final BitSet live = new BitSet();
+
+        final Map<ParkingLotType, BitSet> byType = bitsetsFor(ParkingLotType.class);
+        final Map<ParkingLotCategory, BitSet> byCategory = bitsetsFor(ParkingLotCategory.class);
+        final Map<ParkingLotSize, BitSet> bySize = bitsetsFor(ParkingLotSize.class);
+        final BitSet lighted = new BitSet();
+        final BitSet videoSurveillance = new BitSet();
+        final BitSet evCharging = new BitSet();
+        final BitSet disabilitySpots = new BitSet();
+
+        void put(ParkingLot lot) {
+            Integer existing = ordinalById.get(lot.getId());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                clearBits(ordinal);
+            } else {
+                ordinal = freeOrdinals.isEmpty() ? idByOrdinal.size() : freeOrdinals.nextSetBit(0);
+                if (ordinal == idByOrdinal.size()) {
+                    idByOrdinal.add(lot.getId());
+                } else {
+                    freeOrdinals.clear(ordinal);
+                    idByOrdinal.set(ordinal, lot.getId());
+                }
+                ordinalById.put(lot.getId(), ordinal);
+            }
+
+            live.set(ordinal);
+            if (lot.getTypes() != null) {
+                lot.getTypes().forEach(type -> byType.get(type).set(ordinal));
+            }
+            if (lot.getCategory() != null) {
+                byCategory.get(lot.getCategory()).set(ordinal);
+            }
+            if (lot.getSize() != null) {
+                bySize.get(lot.getSize()).set(ordinal);
+            }
+            lighted.set(ordinal, lot.isLighted());
+            videoSurveillance.set(ordinal, lot.isHasVideoSurveillance());
+            evCharging.set(ordinal, lot.getEvChargingSpots() != null && lot.getEvChargingSpots() > 0);
+            disabilitySpots.set(ordinal, lot.getDisabilitySpots() != null && lot.getDisabilitySpots() > 0);
+        }
+
+        void remove(String id) {
+            Integer ordinal = ordinalById.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            clearBits(ordinal);
+            idByOrdinal.set(ordinal, null);
+            freeOrdinals.set(ordinal);
+        }
+
+        private void clearBits(int ordinal) {
+            live.clear(ordinal);
+            byType.values().forEach(bits -> bits.clear(ordinal));
+            byCategory.values().forEach(bits -> bits.clear(ordinal));
+            bySize.values().forEach(bits -> bits.clear(ordinal));
+            lighted.clear(ordinal);
+            videoSurveillance.clear(ordinal);
+            evCharging.clear(ordinal);
+            disabilitySpots.clear(ordinal);
+        }
+
+        private static <E extends Enum<E>> Map<E, BitSet> bitsetsFor(Class<E> enumType) {
+            Map<E, BitSet> bitsets = new EnumMap<>(enumType);
+            for (E value : enumType.getEnumConstants()) {
+                bitsets.put(value, new BitSet());
+            }
+            return bitsets;
+        }
+    }
+
+    @Autowired
+    public ParkingLotFacetIndex(ParkingLotRepository parkingLotRepository, ParkingLotSpatialIndex spatialIndex) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    @Transactional(readOnly = true)
+    public void initialize() {
+        rebuild();
+    }
+
+    @Scheduled(fixedRateString = "${parking.index.refresh.fixedRate:600000}", initialDelayString = "${parking.index.refresh.fixedRate:600000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (changeLog) {
+            withWriteLock(changeLog::start);
+            Facets rebuilt = new Facets();
+            try {
+                parkingLotRepository.findByStatusFetchingTypes(ParkingLotStatus.ACTIVE).forEach(rebuilt::put);
+            } catch (RuntimeException e) {
+                withWriteLock(changeLog::abandon);
+                throw e;
+            }
+            withWriteLock(() -> {
+                changeLog.replayOnto(rebuilt);
+                facets = rebuilt;
+            });
+            logger.info("Facet index rebuilt with {} active parking lots.", rebuilt.ordinalById.size());
+        }
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        String parkingLotId = parkingLot.getId();
+        Consumer<Facets> change;
+        if (parkingLot.getStatus() == ParkingLotStatus.ACTIVE) {
+            // Loaded while the transaction is open, the change is applied after it commits
+            Hibernate.initialize(parkingLot.getTypes());
+            change = current -> current.put(parkingLot);
+        } else {
+            change = current -> current.remove(parkingLotId);
+        }
+        ParkingLotChangeListener.afterCommit(() -> apply(change));
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        ParkingLotChangeListener.afterCommit(() -> apply(current -> current.remove(parkingLotId)));
+    }
+
+    private void apply(Consumer<Facets> change) {
+        withWriteLock(() -> {
+            change.accept(facets);
+            changeLog.record(change);
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public FacetSearchResultDTO search(FacetSearchRequestDTO request) {
+        boolean hasLocation = request.getLatitude() != null && request.getLongitude() != null;
+        double radiusInKm = request.getRadius() != null ? request.getRadius() : 5.0;
+        int limit = request.getLimit() != null ? request.getLimit() : 50;
+        // Resolved before taking the lock, the spatial index has its own synchronization
+        List<ParkingLotSpatialIndex.ProximityMatch> nearby = hasLocation
+                ? spatialIndex.findWithinRadius(request.getLatitude(), request.getLongitude(), radiusInKm * 1000)
+                : List.of();
+
+        lock.readLock().lock();
+        try {
+            Facets current = facets;
+            BitSet result = (BitSet) current.live.clone();
+            applyAnyOf(result, request.getTypes(), current.byType);
+            applyAnyOf(result, request.getCategories(), current.byCategory);
+            applyAnyOf(result, request.getSizes(), current.bySize);
+            applyFlag(result, request.getLighted(), current.lighted);
+            applyFlag(result, request.getVideoSurveillance(), current.videoSurveillance);
+            applyFlag(result, request.getEvCharging(), current.evCharging);
+            applyFlag(result, request.getDisabilitySpots(), current.disabilitySpots);
+
+            double[] distanceByOrdinal = null;
+            if (hasLocation) {
+                BitSet near = new BitSet(current.idByOrdinal.size());
+                distanceByOrdinal = new double[current.idByOrdinal.size()];
+                for (ParkingLotSpatialIndex.ProximityMatch match : nearby) {
+                    Integer ordinal = current.ordinalById.get(match.getParkingLot().getId());
+                    if (ordinal != null) {
+                        near.set(ordinal);
+                        distanceByOrdinal[ordinal] = match.getDistanceInMeters();
+                    }
+                }
+                result.and(near);
+            }
+
+            List<FacetMatchDTO> matches = new ArrayList<>(result.cardinality());
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                matches.add(new FacetMatchDTO(current.idByOrdinal.get(ordinal), hasLocation ? distanceByOrdinal[ordinal] : null));
+            }
+            if (hasLocation) {
+                matches.sort(Comparator.comparingDouble(FacetMatchDTO::getDistanceInMeters));
+            }
+            int totalMatches = matches.size();
+            if (matches.size() > limit) {
+                matches = new ArrayList<>(matches.subList(0, limit));
+            }
+
+            BitSet scratch = new BitSet();
+            Map<String, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+            facetCounts.put("types", countAll(result, current.byType, scratch));
+            facetCounts.put("categories", countAll(result, current.byCategory, scratch));
+            facetCounts.put("sizes", countAll(result, current.bySize, scratch));
+            Map<String, Integer> features = new LinkedHashMap<>();
+            features.put("lighted", count(result, current.lighted, scratch));
+            features.put("videoSurveillance", count(result, current.videoSurveillance, scratch));
+            features.put("evCharging", count(result, current.evCharging, scratch));
+            features.put("disabilitySpots", count(result, current.disabilitySpots, scratch));
+            facetCounts.put("features", features);
+
+            return new FacetSearchResultDTO(totalMatches, matches, facetCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static <E extends Enum<E>> void applyAnyOf(BitSet result, Set<E> selected, Map<E, BitSet> bitsets) {
+        if (selected == null || selected.isEmpty()) {
+            return;
+        }
+        BitSet any = new BitSet();
+        selected.forEach(value -> any.or(bitsets.get(value)));
+        result.and(any);
+    }
+
+    private static void applyFlag(BitSet result, Boolean required, BitSet bits) {
+        if (required == null) {
+            return;
+        }
+        if (required) {
+            result.and(bits);
+        } else {
+            result.andNot(bits);
+        }
+    }
+
+    private static <E extends Enum<E>> Map<String, Integer> countAll(BitSet result, Map<E, BitSet> bitsets, BitSet scratch) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        bitsets.forEach((value, bits) -> counts.put(value.name(), count(result, bits, scratch)));
+        return counts;
+    }
+
+    private static int count(BitSet result, BitSet bits, BitSet scratch) {
+        scratch.clear();
+        scratch.or(result);
+        scratch.and(bits);
+        return scratch.cardinality();
+    }
+}
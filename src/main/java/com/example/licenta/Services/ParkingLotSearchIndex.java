@@ -0,0 +1,434 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.DTOs.ParkingLotSearchResultDTO;
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Trigram index over the names and addresses of ACTIVE parking lots, for ranked, typo tolerant
+ * search and autocomplete. Text is folded to [a-z0-9 ] so a trigram fits a dense array slot.
+ * Every token is padded with two leading spaces, which turns word prefixes into trigrams too.
+ * <p>
+ * Postings are append-only. An updated lot gets a fresh ordinal and its old one is tombstoned,
+ * so nothing is ever removed from a posting list. Rebuilds compact the tombstones away. Lot
+ * changes apply once they commit, and changes committed during a rebuild are replayed onto it.
+ */
+@Service
+public class ParkingLotSearchIndex implements ParkingLotChangeListener {
+
+    private static final int ALPHABET = 37; // space, a-z, 0-9
+    private static final int TRIGRAM_COUNT = ALPHABET * ALPHABET * ALPHABET;
+    private static final int NAME_FIELD = 0, ADDRESS_FIELD = 1;
+    // Share of the query trigrams a lot must contain; leaves room for about one typo per word
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final double ADDRESS_WEIGHT = 0.8;
+    private static final double PREFIX_BONUS = 0.5;
+    // Posting entries a search may read to collect candidates, past the rarest trigram
+    private static final int CANDIDATE_SCAN_BUDGET = 20_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ParkingLotSearchIndex.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Index index = new Index();
+    // Guarded by lock
+    private final RebuildChangeLog<Index> changeLog = new RebuildChangeLog<>();
+
+    private static final class Index {
+        // Entries are (ordinal << 1) | field
+        final int[][] postings = new int[TRIGRAM_COUNT][];
+        final int[] postingSizes = new int[TRIGRAM_COUNT];
+
+        final List<String> ids = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<String> addresses = new ArrayList<>();
+        final List<String> normalizedNames = new ArrayList<>();
+        final Map<String, Integer> ordinalById = new HashMap<>();
+        final BitSet live = new BitSet();
+
+        void put(ParkingLot lot) {
+            remove(lot.getId());
+            int ordinal = ids.size();
+            String normalizedName = normalize(lot.getName());
+            ids.add(lot.getId());
+            names.add(lot.getName());
+            addresses.add(lot.getAddress());
+            normalizedNames.add(normalizedName);
+            ordinalById.put(lot.getId(), ordinal);
+            live.set(ordinal);
+            for (int trigram : trigrams(normalizedName, false)) {
+                append(trigram, (ordinal << 1) | NAME_FIELD);
+            }
+            for (int trigram : trigrams(normalize(lot.getAddress()), false)) {
+                append(trigram, (ordinal << 1) | ADDRESS_FIELD);
+            }
+        }
+
+        void remove(String id) {
+            Integer ordinal = ordinalById.remove(id);
+            if (ordinal != null) {
+                live.clear(ordinal);
+                names.set(ordinal, null);
+                addresses.set(ordinal, null);
+                normalizedNames.set(ordinal, null);
+            }
+        }
+
+        int tombstones() {
+            return ids.size() - ordinalById.size();
+        }
+
+        private void append(int trigram, int entry) {
+            int[] posting = postings[trigram];
+            int size = postingSizes[trigram];
+            if (posting == null) {
+                posting = new int[4];
+                postings[trigram] = posting;
+            } else if (size == posting.length) {
+                posting = Arrays.copyOf(posting, size * 2);
+                postings[trigram] = posting;
+            }
+            posting[size] = entry;
+            postingSizes[trigram] = size + 1;
+        }
+    }
+
+    // Hit counters, left zeroed after every search so queries do not allocate per lot
+    private static final class Scratch {
+        int[] nameHits = new int[0];
+        int[] addressHits = new int[0];
+        int[] touched = new int[0];
+
+        Scratch ensureCapacity(int ordinals) {
+            if (nameHits.length < ordinals) {
+                int capacity = Math.max(ordinals, nameHits.length * 2);
+                nameHits = new int[capacity];
+                addressHits = new int[capacity];
+                touched = new int[capacity];
+            }
+            return this;
+        }
+    }
+
+    // At most one idle Scratch per core; searches beyond that allocate their own and drop it
+    private final BlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ParkingLotSearchIndex(ParkingLotRepository parkingLotRepository) {
+        this.parkingLotRepository = parkingLotRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    @Transactional(readOnly = true)
+    public void initialize() {
+        rebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    @Scheduled(fixedRateString = "${parking.index.refresh.fixedRate:600000}", initialDelayString = "${parking.index.refresh.fixedRate:600000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (changeLog) {
+            withWriteLock(changeLog::start);
+            Index rebuilt = new Index();
+            try {
+                parkingLotRepository.findByStatus(ParkingLotStatus.ACTIVE).forEach(rebuilt::put);
+            } catch (RuntimeException e) {
+                withWriteLock(changeLog::abandon);
+                throw e;
+            }
+            withWriteLock(() -> {
+                changeLog.replayOnto(rebuilt);
+                index = rebuilt;
+            });
+            logger.info("Search index rebuilt with {} active parking lots.", rebuilt.ordinalById.size());
+        }
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        String parkingLotId = parkingLot.getId();
+        Consumer<Index> change = parkingLot.getStatus() == ParkingLotStatus.ACTIVE
+                ? current -> current.put(parkingLot)
+                : current -> current.remove(parkingLotId);
+        ParkingLotChangeListener.afterCommit(() -> apply(change));
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        ParkingLotChangeListener.afterCommit(() -> apply(current -> current.remove(parkingLotId)));
+    }
+
+    private void apply(Consumer<Index> change) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            changeLog.record(change);
+            compact = index.tombstones() > Math.max(1000, index.ordinalById.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Off the committing thread, and at most one compaction waits at a time
+        if (compact && compactionQueued.compareAndSet(false, true)) {
+            logger.info("Search index has more tombstones than live lots, rebuilding.");
+            compactor.execute(() -> {
+                compactionQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    logger.error("Search index compaction failed.", e);
+                }
+            });
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks lots by the share of query trigrams found in the name (or, weighted lower, the address).
+     * The last query word is matched as a prefix so partially typed words autocomplete, and names
+     * starting with the query get a bonus.
+     */
+    public List<ParkingLotSearchResultDTO> search(String query, int limit) {
+        String normalizedQuery = normalize(query);
+        int[] queryTrigrams = trigrams(normalizedQuery, true);
+        if (queryTrigrams.length == 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Index current = index;
+            int ordinals = current.ids.size();
+            Scratch scratch = acquireScratch(ordinals);
+            int[] nameHits = scratch.nameHits;
+            int[] addressHits = scratch.addressHits;
+            int[] touched = scratch.touched;
+            int touchedCount = 0;
+
+            // A field matching at least minHits query trigrams must contain one of the
+            // (length - minHits + 1) rarest ones, so only those postings produce candidates.
+            // The common trigrams are then only probed for the candidates already found.
+            Integer[] byRarity = new Integer[queryTrigrams.length];
+            for (int i = 0; i < queryTrigrams.length; i++) {
+                byRarity[i] = queryTrigrams[i];
+            }
+            Arrays.sort(byRarity, Comparator.comparingInt(trigram -> current.postingSizes[trigram]));
+            int minHits = Math.max(1, (int) Math.ceil(MIN_SIMILARITY * queryTrigrams.length));
+            int candidateTrigrams = queryTrigrams.length - minHits + 1;
+            // A query made only of common trigrams would read most of the index here. Past the budget
+            // candidates come from fewer trigrams, so a lot missing all of the rarest ones through typos
+            // is not found; the best matches contain nearly every query trigram and still are.
+            long candidatePostings = current.postingSizes[byRarity[0]];
+            for (int q = 1; q < candidateTrigrams; q++) {
+                candidatePostings += current.postingSizes[byRarity[q]];
+                if (candidatePostings > CANDIDATE_SCAN_BUDGET) {
+                    candidateTrigrams = q;
+                    break;
+                }
+            }
+
+            for (int q = 0; q < candidateTrigrams; q++) {
+                int[] posting = current.postings[byRarity[q]];
+                int size = current.postingSizes[byRarity[q]];
+                for (int i = 0; i < size; i++) {
+                    int ordinal = posting[i] >>> 1;
+                    if (nameHits[ordinal] == 0 && addressHits[ordinal] == 0) {
+                        touched[touchedCount++] = ordinal;
+                    }
+                    if ((posting[i] & 1) == NAME_FIELD) {
+                        nameHits[ordinal]++;
+                    } else {
+                        addressHits[ordinal]++;
+                    }
+                }
+            }
+            for (int q = candidateTrigrams; q < byRarity.length; q++) {
+                int[] posting = current.postings[byRarity[q]];
+                int size = current.postingSizes[byRarity[q]];
+                if (size == 0) {
+                    continue;
+                }
+                if ((long) touchedCount * (32 - Integer.numberOfLeadingZeros(size)) < size) {
+                    // Postings are sorted because ordinals only ever grow
+                    for (int t = 0; t < touchedCount; t++) {
+                        int ordinal = touched[t];
+                        if (Arrays.binarySearch(posting, 0, size, (ordinal << 1) | NAME_FIELD) >= 0) {
+                            nameHits[ordinal]++;
+                        }
+                        if (Arrays.binarySearch(posting, 0, size, (ordinal << 1) | ADDRESS_FIELD) >= 0) {
+                            addressHits[ordinal]++;
+                        }
+                    }
+                } else {
+                    for (int i = 0; i < size; i++) {
+                        int ordinal = posting[i] >>> 1;
+                        if (nameHits[ordinal] == 0 && addressHits[ordinal] == 0) {
+                            continue;
+                        }
+                        if ((posting[i] & 1) == NAME_FIELD) {
+                            nameHits[ordinal]++;
+                        } else {
+                            addressHits[ordinal]++;
+                        }
+                    }
+                }
+            }
+
+            PriorityQueue<ParkingLotSearchResultDTO> best =
+                    new PriorityQueue<>(limit + 1, Comparator.comparingDouble(ParkingLotSearchResultDTO::getScore));
+            for (int t = 0; t < touchedCount; t++) {
+                int ordinal = touched[t];
+                int nameHitCount = nameHits[ordinal], addressHitCount = addressHits[ordinal];
+                nameHits[ordinal] = 0;
+                addressHits[ordinal] = 0;
+                if (!current.live.get(ordinal)) {
+                    continue;
+                }
+                double similarity = Math.max(nameHitCount, addressHitCount * ADDRESS_WEIGHT) / queryTrigrams.length;
+                if (similarity < MIN_SIMILARITY) {
+                    continue;
+                }
+                double score = similarity + (current.normalizedNames.get(ordinal).startsWith(normalizedQuery) ? PREFIX_BONUS : 0.0);
+                if (best.size() < limit || score > best.peek().getScore()) {
+                    best.add(new ParkingLotSearchResultDTO(current.ids.get(ordinal), current.names.get(ordinal), current.addresses.get(ordinal), score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+
+            // Every touched counter is zeroed again at this point
+            releaseScratch(scratch, ordinals);
+
+            List<ParkingLotSearchResultDTO> results = new ArrayList<>(best);
+            results.sort(Comparator.comparingDouble(ParkingLotSearchResultDTO::getScore).reversed());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Scratch acquireScratch(int ordinals) {
+        Scratch scratch = scratchPool.poll();
+        return (scratch != null ? scratch : new Scratch()).ensureCapacity(ordinals);
+    }
+
+    private void releaseScratch(Scratch scratch, int ordinals) {
+        // Arrays sized for an index that has since been compacted are dropped instead of pooled
+        if (scratch.nameHits.length <= 2 * Math.max(ordinals, 1024)) {
+            scratchPool.offer(scratch);
+        }
+    }
+
+    // Lowercase, accents stripped, everything outside [a-z0-9] becomes a single space
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase();
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean lastWasSpace = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                normalized.append(c);
+                lastWasSpace = false;
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && !lastWasSpace) {
+                normalized.append(' ');
+                lastWasSpace = true;
+            }
+        }
+        return normalized.toString().trim();
+    }
+
+    /**
+     * Distinct trigrams of the padded tokens. Tokens also get a trailing space, except the last token
+     * of a query when it is treated as a prefix.
+     */
+    static int[] trigrams(String normalized, boolean lastTokenIsPrefix) {
+        if (normalized.isEmpty()) {
+            return new int[0];
+        }
+        String[] tokens = normalized.split(" ");
+        BitSet seen = new BitSet(TRIGRAM_COUNT);
+        int[] result = new int[16];
+        int count = 0;
+        for (int t = 0; t < tokens.length; t++) {
+            boolean trailingPad = !(lastTokenIsPrefix && t == tokens.length - 1);
+            String padded = "  " + tokens[t] + (trailingPad ? " " : "");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                int trigram = (code(padded.charAt(i)) * ALPHABET + code(padded.charAt(i + 1))) * ALPHABET + code(padded.charAt(i + 2));
+                if (!seen.get(trigram)) {
+                    seen.set(trigram);
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = trigram;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1 + (c - 'a');
+        }
+        if (c >= '0' && c <= '9') {
+            return 27 + (c - '0');
+        }
+        return 0;
+    }
+}
@@ -5,6 +5,7 @@ import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
 import com.example.licenta.Enum.ParkingLot.PaymentTiming;
 import com.example.licenta.Enum.Reservation.ReservationType;
 import com.example.licenta.Exceptions.InvalidCredentialsException;
+import com.example.licenta.Exceptions.InvalidDataException;
 import com.example.licenta.Exceptions.ResourceNotFoundException;
 import com.example.licenta.Mappers.ParkingLotMapper;
 import com.example.licenta.Models.ParkingLot;
@@ -15,6 +16,9 @@ import com.example.licenta.Repositories.ReservationRepository;
 import com.example.licenta.Repositories.UserRepository;
 import com.example.licenta.Utils.LocationUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -37,6 +41,8 @@ public class ParkingLotService {
     private final ReservationRepository reservationRepository;
     private final ParkingLotMapper parkingLotMapper;
     private final ImageService imageService;
+    private final ParkingLotSpatialIndex spatialIndex;
+    private final List<ParkingLotChangeListener> parkingLotChangeListeners;
 
     private static class PeriodDates {
         OffsetDateTime currentStart, currentEnd, prevStart, prevEnd;
@@ -63,12 +69,16 @@ public class ParkingLotService {
             UserRepository userRepository,
             ReservationRepository reservationRepository,
             ParkingLotMapper parkingLotMapper,
-            ImageService imageService) {
+            ImageService imageService,
+            ParkingLotSpatialIndex spatialIndex,
+            List<ParkingLotChangeListener> parkingLotChangeListeners) {
         this.parkingLotRepository = parkingLotRepository;
         this.userRepository = userRepository;
         this.reservationRepository = reservationRepository;
         this.parkingLotMapper = parkingLotMapper;
         this.imageService = imageService;
+        this.spatialIndex = spatialIndex;
+        this.parkingLotChangeListeners = parkingLotChangeListeners;
     }
 
     @Transactional
@@ -76,6 +86,7 @@ public class ParkingLotService {
         User owner = userRepository.findById(ownerId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + ownerId));
 
+        validateBoundaryPolygon(dto.getBoundaryPolygon());
         ParkingLot parkingLot = parkingLotMapper.toEntity(dto);
         parkingLot.setOwner(owner);
         parkingLot.setCreatedAt(OffsetDateTime.now());
@@ -84,7 +95,9 @@ public class ParkingLotService {
         parkingLot.setStatus(ParkingLotStatus.ACTIVE);
         parkingLot.setSpotsAvailable(parkingLot.getTotalSpots());
 
-        return parkingLotRepository.save(parkingLot);
+        ParkingLot savedParkingLot = parkingLotRepository.save(parkingLot);
+        parkingLotChangeListeners.forEach(listener -> listener.onParkingLotSaved(savedParkingLot));
+        return savedParkingLot;
     }
 
     @Transactional
@@ -96,10 +109,13 @@ public class ParkingLotService {
             throw new InvalidCredentialsException("You don't have permission to update this parking lot");
         }
 
+        validateBoundaryPolygon(dto.getBoundaryPolygon());
         parkingLotMapper.updateEntityFromDTO(dto, existingParkingLot);
         existingParkingLot.setUpdatedAt(OffsetDateTime.now());
 
-        return parkingLotRepository.save(existingParkingLot);
+        ParkingLot savedParkingLot = parkingLotRepository.save(existingParkingLot);
+        parkingLotChangeListeners.forEach(listener -> listener.onParkingLotSaved(savedParkingLot));
+        return savedParkingLot;
     }
 
     @Transactional
@@ -123,13 +139,78 @@ public class ParkingLotService {
         }
 
         parkingLotRepository.delete(parkingLot);
+        parkingLotChangeListeners.forEach(listener -> listener.onParkingLotDeleted(parkingLotId));
+    }
+
+    private void validateBoundaryPolygon(String boundaryPolygon) {
+        if (boundaryPolygon == null || boundaryPolygon.isBlank()) {
+            return;
+        }
+        double[][] boundary = LocationUtils.parsePolygon(boundaryPolygon);
+        if (boundary == null) {
+            throw new InvalidDataException("Boundary polygon must be in format 'lat,lng;lat,lng;...' with at least 3 vertices");
+        }
+        double latSpan = Arrays.stream(boundary[0]).max().getAsDouble() - Arrays.stream(boundary[0]).min().getAsDouble();
+        double lngSpan = Arrays.stream(boundary[1]).max().getAsDouble() - Arrays.stream(boundary[1]).min().getAsDouble();
+        if (latSpan > ParkingLotSpatialIndex.MAX_BOUNDARY_SPAN_DEGREES || lngSpan > ParkingLotSpatialIndex.MAX_BOUNDARY_SPAN_DEGREES) {
+            throw new InvalidDataException("Boundary polygon is too large");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    @Transactional
+    public void backfillParkingLotCoordinates() {
+        int migrated = parkingLotRepository.backfillCoordinatesFromGpsString();
+        if (migrated > 0) {
+            System.out.println("Backfilled latitude/longitude columns for " + migrated + " parking lots.");
+        }
     }
 
     @Transactional(readOnly = true)
     public Page<ParkingLot> findNearbyParkingLots(double latitude, double longitude, double radiusInKm, Pageable pageable) {
+        double radiusInMeters = radiusInKm * 1000;
+        double latSpan = LocationUtils.latitudeDegreesForMeters(radiusInMeters);
+        double lonSpan = Math.min(LocationUtils.longitudeDegreesForMeters(radiusInMeters, latitude), 180.0);
 
         return parkingLotRepository.findNearbyParkingLots(
-                latitude, longitude, radiusInKm, pageable);
+                latitude, longitude, radiusInKm,
+                latitude - latSpan, latitude + latSpan,
+                longitude - lonSpan, longitude + lonSpan,
+                pageable);
+    }
+
+    /**
+     * Cursor format is "distanceInMeters_parkingLotId", as produced by {@link #encodeNearestCursor}.
+     */
+    public List<ParkingLotSpatialIndex.ProximityMatch> findNearestParkingLots(double latitude, double longitude, int k, String cursor) {
+        if (k < 1 || k > 100) {
+            throw new InvalidDataException("k must be between 1 and 100");
+        }
+        if (cursor == null || cursor.isBlank()) {
+            return spatialIndex.findNearest(latitude, longitude, k, null, null);
+        }
+        int separator = cursor.indexOf('_');
+        if (separator <= 0 || separator == cursor.length() - 1) {
+            throw new InvalidDataException("Invalid cursor: " + cursor);
+        }
+        double afterDistance;
+        try {
+            afterDistance = Double.parseDouble(cursor.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new InvalidDataException("Invalid cursor: " + cursor);
+        }
+        return spatialIndex.findNearest(latitude, longitude, k, afterDistance, cursor.substring(separator + 1));
+    }
+
+    public String encodeNearestCursor(ParkingLotSpatialIndex.ProximityMatch lastMatch) {
+        return lastMatch.getDistanceInMeters() + "_" + lastMatch.getParkingLot().getId();
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, ParkingLot> getParkingLotsByIds(List<String> ids) {
+        return parkingLotRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ParkingLot::getId, Function.identity()));
     }
 
     @Transactional(readOnly = true)
@@ -168,74 +249,35 @@ public class ParkingLotService {
         return parkingLotRepository.findByAllowReservationsTrue(pageable);
     }
 
-    @Transactional(readOnly = true)
-    public Optional<ParkingLot> findParkingLotAtUserLocation(double userLatitude, double userLongitude, double userAccuracyInMeters) {
-        List<ParkingLot> allParkingLots = parkingLotRepository.findByStatus(ParkingLotStatus.ACTIVE);
-
-        for (ParkingLot lot : allParkingLots) {
-            if (lot.getGpsCoordinates() == null || lot.getGpsCoordinates().trim().isEmpty()) {
-                continue;
-            }
-
-            String[] coords = lot.getGpsCoordinates().split(",");
-            if (coords.length != 2) {
-                System.err.println("Invalid GPS coordinates format for parking lot ID " + lot.getId() + ": " + lot.getGpsCoordinates());
-                continue;
-            }
-
-            try {
-                double lotLatitude = Double.parseDouble(coords[0].trim());
-                double lotLongitude = Double.parseDouble(coords[1].trim());
-
-                double distanceToLotCenter = LocationUtils.calculateDistanceInMeters(userLatitude, userLongitude, lotLatitude, lotLongitude);
-
-                if (distanceToLotCenter <= userAccuracyInMeters) {
-                    return Optional.of(lot);
-                }
-            } catch (NumberFormatException e) {
-                System.err.println("Could not parse GPS coordinates for parking lot ID " + lot.getId() + ": " + lot.getGpsCoordinates() + " - " + e.getMessage());
-            }
-        }
-        return Optional.empty();
+    public Optional<String> findParkingLotAtUserLocation(double userLatitude, double userLongitude, double userAccuracyInMeters) {
+        return spatialIndex.findContaining(userLatitude, userLongitude, userAccuracyInMeters)
+                .map(ParkingLotSpatialIndex.IndexedParkingLot::getId);
     }
 
-    @Transactional(readOnly = true)
     public Optional<ClosestParkingLotInfoDTO> findClosestParkingLotInProximity(
             double userLatitude, double userLongitude, double proximityRadiusInMeters) {
+        return spatialIndex.findClosest(userLatitude, userLongitude, proximityRadiusInMeters)
+                .map(match -> new ClosestParkingLotInfoDTO(match.getParkingLot().getId(), match.getDistanceInMeters()));
+    }
 
-        List<ParkingLot> allActiveLots = parkingLotRepository.findByStatus(ParkingLotStatus.ACTIVE);
-        ParkingLot closestLot = null;
-        double minDistance = Double.MAX_VALUE;
-
-        for (ParkingLot lot : allActiveLots) {
-            if (lot.getGpsCoordinates() == null || lot.getGpsCoordinates().trim().isEmpty()) {
-                continue;
-            }
-            String[] coords = lot.getGpsCoordinates().split(",");
-            if (coords.length != 2) {
-                System.err.println("ClosestProximity Check: Invalid GPS for lot ID " + lot.getId() + ": " + lot.getGpsCoordinates());
-                continue;
-            }
-            try {
-                double lotLatitude = Double.parseDouble(coords[0].trim());
-                double lotLongitude = Double.parseDouble(coords[1].trim());
-                double distance = LocationUtils.calculateDistanceInMeters(userLatitude, userLongitude, lotLatitude, lotLongitude);
-
-                if (distance <= proximityRadiusInMeters) { // Check if within defined proximity
-                    if (distance < minDistance) {
-                        minDistance = distance;
-                        closestLot = lot;
-                    }
-                }
-            } catch (NumberFormatException e) {
-                System.err.println("ClosestProximity Check: Parse error for lot ID " + lot.getId() + ": " + lot.getGpsCoordinates() + " - " + e.getMessage());
-            }
-        }
-
-        if (closestLot != null) {
-            return Optional.of(new ClosestParkingLotInfoDTO(closestLot.getId(), minDistance));
-        }
-        return Optional.empty();
+    /**
+     * Evaluates every sample against one index snapshot, so a concurrent rebuild cannot split the batch.
+     */
+    public List<LocationCheckResultDTO> checkLocations(List<LocationSampleDTO> samples, double proximityRadiusInMeters) {
+        ParkingLotSpatialIndex.Grid snapshot = spatialIndex.snapshot();
+        return samples.parallelStream()
+                .map(sample -> {
+                    ClosestParkingLotInfoDTO closest = snapshot
+                            .findClosest(sample.getLatitude(), sample.getLongitude(), proximityRadiusInMeters)
+                            .map(m -> new ClosestParkingLotInfoDTO(m.getParkingLot().getId(), m.getDistanceInMeters()))
+                            .orElse(null);
+                    String insideLotId = snapshot
+                            .findContaining(sample.getLatitude(), sample.getLongitude(), sample.getAccuracy())
+                            .map(ParkingLotSpatialIndex.IndexedParkingLot::getId)
+                            .orElse(null);
+                    return new LocationCheckResultDTO(sample.getDeviceId(), closest, insideLotId);
+                })
+                .collect(Collectors.toList());
     }
 
     private PeriodDates calculatePeriodDates(String periodStr, OffsetDateTime now) {
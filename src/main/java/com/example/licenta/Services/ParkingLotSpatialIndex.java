@@ -0,0 +1,490 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.example.licenta.Utils.LocationUtils;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Grid index over the coordinates of ACTIVE parking lots. Coordinates are parsed once when a lot
+ * is indexed; lookups only visit the grid cells overlapping the search radius. Lot changes apply
+ * once they commit, and changes committed during a rebuild are replayed onto the rebuilt grid.
+ */
+@Service
+public class ParkingLotSpatialIndex implements ParkingLotChangeListener {
+
+    // ~1.1 km of latitude per cell
+    private static final double CELL_SIZE_DEGREES = 0.01;
+
+    // Caps the number of grid cells a single boundary polygon is registered in
+    public static final double MAX_BOUNDARY_SPAN_DEGREES = 0.2;
+
+    private static final Logger logger = LoggerFactory.getLogger(ParkingLotSpatialIndex.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+
+    private volatile Grid grid = new Grid();
+    // Guarded by this
+    private final RebuildChangeLog<Grid> changeLog = new RebuildChangeLog<>();
+
+    @Getter
+    @AllArgsConstructor
+    public static final class IndexedParkingLot {
+        private final String id;
+        private final double latitude;
+        private final double longitude;
+        // Boundary vertices and their bounding box, null/NaN for point-only lots
+        private final double[] boundaryLatitudes;
+        private final double[] boundaryLongitudes;
+        private final double minLatitude;
+        private final double maxLatitude;
+        private final double minLongitude;
+        private final double maxLongitude;
+
+        public IndexedParkingLot(String id, double latitude, double longitude) {
+            this(id, latitude, longitude, null, null, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+
+        public boolean hasBoundary() {
+            return boundaryLatitudes != null;
+        }
+
+        public boolean containsPoint(double latitude, double longitude) {
+            return hasBoundary()
+                    && latitude >= minLatitude && latitude <= maxLatitude
+                    && longitude >= minLongitude && longitude <= maxLongitude
+                    && LocationUtils.isPointInPolygon(latitude, longitude, boundaryLatitudes, boundaryLongitudes);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class ProximityMatch {
+        private final IndexedParkingLot parkingLot;
+        private final double distanceInMeters;
+    }
+
+    public static final class Grid {
+        final ConcurrentHashMap<String, IndexedParkingLot> byId = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Long, IndexedParkingLot[]> cells = new ConcurrentHashMap<>();
+
+        // Bounded lots are registered in every cell their bounding box touches
+        final ConcurrentHashMap<Long, IndexedParkingLot[]> boundaryCells = new ConcurrentHashMap<>();
+
+        void put(IndexedParkingLot entry) {
+            remove(entry.getId());
+            byId.put(entry.getId(), entry);
+            addToCell(cells, cellKey(entry.getLatitude(), entry.getLongitude()), entry);
+            if (entry.hasBoundary()) {
+                forEachBoundaryCell(entry, key -> addToCell(boundaryCells, key, entry));
+            }
+        }
+
+        void remove(String id) {
+            IndexedParkingLot previous = byId.remove(id);
+            if (previous == null) {
+                return;
+            }
+            removeFromCell(cells, cellKey(previous.getLatitude(), previous.getLongitude()), id);
+            if (previous.hasBoundary()) {
+                forEachBoundaryCell(previous, key -> removeFromCell(boundaryCells, key, id));
+            }
+        }
+
+        private static void addToCell(ConcurrentHashMap<Long, IndexedParkingLot[]> target, long key, IndexedParkingLot entry) {
+            target.merge(key, new IndexedParkingLot[]{entry}, (existing, added) -> {
+                IndexedParkingLot[] merged = Arrays.copyOf(existing, existing.length + 1);
+                merged[existing.length] = added[0];
+                return merged;
+            });
+        }
+
+        private static void removeFromCell(ConcurrentHashMap<Long, IndexedParkingLot[]> target, long key, String id) {
+            target.computeIfPresent(key, (k, existing) -> {
+                IndexedParkingLot[] remaining = Arrays.stream(existing)
+                        .filter(e -> !e.getId().equals(id))
+                        .toArray(IndexedParkingLot[]::new);
+                return remaining.length == 0 ? null : remaining;
+            });
+        }
+
+        private static void forEachBoundaryCell(IndexedParkingLot entry, LongConsumer action) {
+            for (int latCell = cellOf(entry.getMinLatitude()); latCell <= cellOf(entry.getMaxLatitude()); latCell++) {
+                for (int lonCell = cellOf(entry.getMinLongitude()); lonCell <= cellOf(entry.getMaxLongitude()); lonCell++) {
+                    action.accept(cellKey(latCell, lonCell));
+                }
+            }
+        }
+
+        /**
+         * Lot the point lies in: a lot whose boundary polygon contains the point, otherwise the closest
+         * point-only lot within the accuracy radius. Bounded lots are only matched by their polygon.
+         */
+        public Optional<IndexedParkingLot> findContaining(double latitude, double longitude, double accuracyInMeters) {
+            IndexedParkingLot[] candidates = boundaryCells.get(cellKey(latitude, longitude));
+            if (candidates != null) {
+                for (IndexedParkingLot candidate : candidates) {
+                    if (candidate.containsPoint(latitude, longitude)) {
+                        return Optional.of(candidate);
+                    }
+                }
+            }
+            return findClosest(latitude, longitude, accuracyInMeters, true).map(ProximityMatch::getParkingLot);
+        }
+
+        public Optional<ProximityMatch> findClosest(double latitude, double longitude, double radiusInMeters) {
+            return findClosest(latitude, longitude, radiusInMeters, false);
+        }
+
+        public List<ProximityMatch> findWithinRadius(double latitude, double longitude, double radiusInMeters) {
+            List<ProximityMatch> matches = new ArrayList<>();
+            double latSpan = LocationUtils.latitudeDegreesForMeters(radiusInMeters);
+            double lonSpan = LocationUtils.longitudeDegreesForMeters(radiusInMeters, latitude);
+            int minLatCell = cellOf(latitude - latSpan), maxLatCell = cellOf(latitude + latSpan);
+            int minLonCell = cellOf(longitude - lonSpan), maxLonCell = cellOf(longitude + lonSpan);
+            long cellCount = (long) (maxLatCell - minLatCell + 1) * (maxLonCell - minLonCell + 1);
+
+            if (lonSpan >= 180 || cellCount > byId.size()) {
+                for (IndexedParkingLot lot : byId.values()) {
+                    addIfWithin(matches, lot, latitude, longitude, radiusInMeters);
+                }
+            } else {
+                for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                    for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                        IndexedParkingLot[] cell = cells.get(cellKey(latCell, lonCell));
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (IndexedParkingLot lot : cell) {
+                            addIfWithin(matches, lot, latitude, longitude, radiusInMeters);
+                        }
+                    }
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * Ids of the lots whose point lies inside the box. Boxes crossing the antimeridian are not supported.
+         */
+        public List<String> findWithinBounds(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+            List<String> ids = new ArrayList<>();
+            int minLatCell = cellOf(minLatitude), maxLatCell = cellOf(maxLatitude);
+            int minLonCell = cellOf(minLongitude), maxLonCell = cellOf(maxLongitude);
+            long cellCount = (long) (maxLatCell - minLatCell + 1) * (maxLonCell - minLonCell + 1);
+
+            if (cellCount > byId.size()) {
+                for (IndexedParkingLot lot : byId.values()) {
+                    addIfInside(ids, lot, minLatitude, minLongitude, maxLatitude, maxLongitude);
+                }
+            } else {
+                for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                    for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                        IndexedParkingLot[] cell = cells.get(cellKey(latCell, lonCell));
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (IndexedParkingLot lot : cell) {
+                            addIfInside(ids, lot, minLatitude, minLongitude, maxLatitude, maxLongitude);
+                        }
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private static void addIfInside(List<String> ids, IndexedParkingLot lot,
+                                        double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+            if (lot.getLatitude() >= minLatitude && lot.getLatitude() <= maxLatitude
+                    && lot.getLongitude() >= minLongitude && lot.getLongitude() <= maxLongitude) {
+                ids.add(lot.getId());
+            }
+        }
+
+        private static void addIfWithin(List<ProximityMatch> matches, IndexedParkingLot lot, double latitude, double longitude, double radiusInMeters) {
+            double distance = LocationUtils.calculateDistanceInMeters(latitude, longitude, lot.getLatitude(), lot.getLongitude());
+            if (distance <= radiusInMeters) {
+                matches.add(new ProximityMatch(lot, distance));
+            }
+        }
+
+        private Optional<ProximityMatch> findClosest(double latitude, double longitude, double radiusInMeters, boolean pointLotsOnly) {
+            IndexedParkingLot closest = null;
+            double minDistance = Double.MAX_VALUE;
+
+            double latSpan = LocationUtils.latitudeDegreesForMeters(radiusInMeters);
+            double lonSpan = LocationUtils.longitudeDegreesForMeters(radiusInMeters, latitude);
+            int minLatCell = cellOf(latitude - latSpan), maxLatCell = cellOf(latitude + latSpan);
+            int minLonCell = cellOf(longitude - lonSpan), maxLonCell = cellOf(longitude + lonSpan);
+            long cellCount = (long) (maxLatCell - minLatCell + 1) * (maxLonCell - minLonCell + 1);
+
+            if (lonSpan >= 180 || cellCount > byId.size()) {
+                for (IndexedParkingLot lot : byId.values()) {
+                    double distance = LocationUtils.calculateDistanceInMeters(latitude, longitude, lot.getLatitude(), lot.getLongitude());
+                    if (distance <= radiusInMeters && distance < minDistance && !(pointLotsOnly && lot.hasBoundary())) {
+                        minDistance = distance;
+                        closest = lot;
+                    }
+                }
+            } else {
+                for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                    for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                        IndexedParkingLot[] cell = cells.get(cellKey(latCell, lonCell));
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (IndexedParkingLot lot : cell) {
+                            double distance = LocationUtils.calculateDistanceInMeters(latitude, longitude, lot.getLatitude(), lot.getLongitude());
+                            if (distance <= radiusInMeters && distance < minDistance && !(pointLotsOnly && lot.hasBoundary())) {
+                                minDistance = distance;
+                                closest = lot;
+                            }
+                        }
+                    }
+                }
+            }
+
+            return closest == null ? Optional.empty() : Optional.of(new ProximityMatch(closest, minDistance));
+        }
+    }
+
+    @Autowired
+    public ParkingLotSpatialIndex(ParkingLotRepository parkingLotRepository) {
+        this.parkingLotRepository = parkingLotRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    @Transactional(readOnly = true)
+    public void initialize() {
+        rebuild();
+    }
+
+    // Picks up changes made by other application instances.
+    @Scheduled(fixedRateString = "${parking.index.refresh.fixedRate:600000}", initialDelayString = "${parking.index.refresh.fixedRate:600000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (changeLog) {
+            synchronized (this) {
+                changeLog.start();
+            }
+            Grid rebuilt = new Grid();
+            try {
+                for (ParkingLot lot : parkingLotRepository.findByStatus(ParkingLotStatus.ACTIVE)) {
+                    IndexedParkingLot entry = toEntry(lot);
+                    if (entry != null) {
+                        rebuilt.put(entry);
+                    }
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    changeLog.abandon();
+                }
+                throw e;
+            }
+            synchronized (this) {
+                changeLog.replayOnto(rebuilt);
+                grid = rebuilt;
+            }
+            logger.info("Spatial index rebuilt with {} active parking lots.", rebuilt.byId.size());
+        }
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        String parkingLotId = parkingLot.getId();
+        IndexedParkingLot entry = parkingLot.getStatus() == ParkingLotStatus.ACTIVE ? toEntry(parkingLot) : null;
+        ParkingLotChangeListener.afterCommit(() -> apply(entry == null
+                ? current -> current.remove(parkingLotId)
+                : current -> current.put(entry)));
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        ParkingLotChangeListener.afterCommit(() -> apply(current -> current.remove(parkingLotId)));
+    }
+
+    private synchronized void apply(Consumer<Grid> change) {
+        change.accept(grid);
+        changeLog.record(change);
+    }
+
+    public int size() {
+        return grid.byId.size();
+    }
+
+    public Optional<ProximityMatch> findClosest(double latitude, double longitude, double radiusInMeters) {
+        return grid.findClosest(latitude, longitude, radiusInMeters);
+    }
+
+    public Optional<IndexedParkingLot> findContaining(double latitude, double longitude, double accuracyInMeters) {
+        return grid.findContaining(latitude, longitude, accuracyInMeters);
+    }
+
+    public List<ProximityMatch> findWithinRadius(double latitude, double longitude, double radiusInMeters) {
+        return grid.findWithinRadius(latitude, longitude, radiusInMeters);
+    }
+
+    public List<String> findWithinBounds(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        return grid.findWithinBounds(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    }
+
+    /**
+     * Current grid. Batch callers take it once instead of re-reading the index per point, so a
+     * concurrent rebuild does not split a batch across two grids.
+     */
+    public Grid snapshot() {
+        return grid;
+    }
+
+    /**
+     * Returns up to k lots ordered by (distance, id), starting strictly after the given cursor position.
+     * Grid rings around the query cell are visited outwards until no unvisited cell can hold a closer lot.
+     */
+    public List<ProximityMatch> findNearest(double latitude, double longitude, int k, Double afterDistance, String afterId) {
+        Grid current = grid;
+        PriorityQueue<ProximityMatch> best = new PriorityQueue<>(k + 1, NEAREST_ORDER.reversed());
+        int totalLots = current.byId.size();
+        if (k <= 0 || totalLots == 0) {
+            return List.of();
+        }
+
+        int centerLatCell = cellOf(latitude), centerLonCell = cellOf(longitude);
+        int visitedLots = 0;
+        long visitedCells = 0;
+
+        for (int ring = 0; visitedLots < totalLots; ring++) {
+            if (visitedCells > totalLots) {
+                // Sparse catalog far from the query point: a plain scan is cheaper than more rings
+                best.clear();
+                for (IndexedParkingLot lot : current.byId.values()) {
+                    offerNearest(best, k, lot, latitude, longitude, afterDistance, afterId);
+                }
+                break;
+            }
+            for (int latCell = centerLatCell - ring; latCell <= centerLatCell + ring; latCell++) {
+                boolean edgeRow = latCell == centerLatCell - ring || latCell == centerLatCell + ring;
+                int lonStep = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int lonCell = centerLonCell - ring; lonCell <= centerLonCell + ring; lonCell += lonStep) {
+                    visitedCells++;
+                    IndexedParkingLot[] cell = current.cells.get(cellKey(latCell, lonCell));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (IndexedParkingLot lot : cell) {
+                        visitedLots++;
+                        offerNearest(best, k, lot, latitude, longitude, afterDistance, afterId);
+                    }
+                }
+            }
+            if (best.size() == k && best.peek().getDistanceInMeters() <= distanceOutsideRing(latitude, longitude, centerLatCell, centerLonCell, ring)) {
+                break;
+            }
+        }
+
+        List<ProximityMatch> ordered = new ArrayList<>(best);
+        ordered.sort(NEAREST_ORDER);
+        return ordered;
+    }
+
+    private static final Comparator<ProximityMatch> NEAREST_ORDER = Comparator
+            .comparingDouble(ProximityMatch::getDistanceInMeters)
+            .thenComparing(match -> match.getParkingLot().getId());
+
+    private static void offerNearest(PriorityQueue<ProximityMatch> best, int k, IndexedParkingLot lot,
+                                     double latitude, double longitude, Double afterDistance, String afterId) {
+        double distance = LocationUtils.calculateDistanceInMeters(latitude, longitude, lot.getLatitude(), lot.getLongitude());
+        if (afterDistance != null) {
+            int cmp = Double.compare(distance, afterDistance);
+            if (cmp < 0 || (cmp == 0 && (afterId == null || lot.getId().compareTo(afterId) <= 0))) {
+                return;
+            }
+        }
+        ProximityMatch candidate = new ProximityMatch(lot, distance);
+        if (best.size() < k) {
+            best.add(candidate);
+        } else if (NEAREST_ORDER.compare(candidate, best.peek()) < 0) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+
+    // Lower bound for the distance from the query point to any cell outside the given ring.
+    private static double distanceOutsideRing(double latitude, double longitude, int centerLatCell, int centerLonCell, int ring) {
+        double minLat = (centerLatCell - ring) * CELL_SIZE_DEGREES, maxLat = (centerLatCell + ring + 1) * CELL_SIZE_DEGREES;
+        double minLon = (centerLonCell - ring) * CELL_SIZE_DEGREES, maxLon = (centerLonCell + ring + 1) * CELL_SIZE_DEGREES;
+        double latMeters = Math.min(latitude - minLat, maxLat - latitude) * LocationUtils.METERS_PER_DEGREE_LATITUDE;
+        double widestLatitude = Math.min(90.0, Math.max(Math.abs(minLat), Math.abs(maxLat)));
+        double lonMeters = Math.min(longitude - minLon, maxLon - longitude)
+                * LocationUtils.METERS_PER_DEGREE_LATITUDE * Math.cos(Math.toRadians(widestLatitude));
+        // Slightly conservative: the haversine earth radius is a little smaller than the planar factor
+        return Math.max(0.0, Math.min(latMeters, lonMeters) * 0.99);
+    }
+
+    private static IndexedParkingLot toEntry(ParkingLot lot) {
+        double latitude, longitude;
+        if (lot.getLatitude() != null && lot.getLongitude() != null) {
+            latitude = lot.getLatitude();
+            longitude = lot.getLongitude();
+        } else {
+            double[] coordinates = LocationUtils.parseCoordinates(lot.getGpsCoordinates());
+            if (coordinates == null) {
+                if (lot.getGpsCoordinates() != null && !lot.getGpsCoordinates().trim().isEmpty()) {
+                    logger.warn("Invalid GPS coordinates for parking lot ID {}: {}", lot.getId(), lot.getGpsCoordinates());
+                }
+                return null;
+            }
+            latitude = coordinates[0];
+            longitude = coordinates[1];
+        }
+
+        double[][] boundary = LocationUtils.parsePolygon(lot.getBoundaryPolygon());
+        if (boundary == null) {
+            if (lot.getBoundaryPolygon() != null && !lot.getBoundaryPolygon().trim().isEmpty()) {
+                logger.warn("Invalid boundary polygon for parking lot ID {}, indexing it as a point.", lot.getId());
+            }
+            return new IndexedParkingLot(lot.getId(), latitude, longitude);
+        }
+        double[] lats = boundary[0], lngs = boundary[1];
+        double minLat = Arrays.stream(lats).min().getAsDouble(), maxLat = Arrays.stream(lats).max().getAsDouble();
+        double minLng = Arrays.stream(lngs).min().getAsDouble(), maxLng = Arrays.stream(lngs).max().getAsDouble();
+        if (maxLat - minLat > MAX_BOUNDARY_SPAN_DEGREES || maxLng - minLng > MAX_BOUNDARY_SPAN_DEGREES) {
+            logger.warn("Boundary polygon of parking lot ID {} is too large, indexing it as a point.", lot.getId());
+            return new IndexedParkingLot(lot.getId(), latitude, longitude);
+        }
+        return new IndexedParkingLot(lot.getId(), latitude, longitude, lats, lngs, minLat, maxLat, minLng, maxLng);
+    }
+
+    private static int cellOf(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return cellKey(cellOf(latitude), cellOf(longitude));
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
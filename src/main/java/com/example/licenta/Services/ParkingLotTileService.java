@@ -0,0 +1,312 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.DTOs.TileClusterDTO;
+import com.example.licenta.Enum.ParkingLot.ParkingLotStatus;
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.example.licenta.Utils.LocationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-zoom cluster aggregates for the map view. A tile at zoom z is split into an 8x8 grid of
+ * cluster cells, i.e. the tiles of zoom z + 3, and every active lot is summed into its cell at each
+ * zoom level. Lot moves and availability changes adjust those sums in place and evict the cached
+ * responses of the tiles containing the lot. Lot changes apply once they commit. Rendered tiles
+ * sit in a bounded LRU cache, and empty ones are never cached.
+ */
+@Service
+public class ParkingLotTileService implements ParkingLotChangeListener, AvailabilityChangeListener {
+
+    public static final int MAX_ZOOM = 18;
+    // Cluster cells per tile side = 2^CLUSTER_ZOOM_OFFSET
+    private static final int CLUSTER_ZOOM_OFFSET = 3;
+    private static final double MAX_MERCATOR_LATITUDE = 85.05112878;
+
+    private static final Logger logger = LoggerFactory.getLogger(ParkingLotTileService.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+    // Lazy, the store notifies this service of every change
+    private final AvailabilityStore availabilityStore;
+
+    private static final class LotState {
+        final double latitude;
+        final double longitude;
+        final int spotsAvailable;
+
+        LotState(double latitude, double longitude, int spotsAvailable) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.spotsAvailable = spotsAvailable;
+        }
+    }
+
+    private static final class ClusterAggregate {
+        int lotCount;
+        double latitudeSum;
+        double longitudeSum;
+        long spotsAvailableSum;
+    }
+
+    private static final class Aggregates {
+        final Map<String, LotState> lots = new HashMap<>();
+        // Index = zoom level of the cluster cells (tile zoom + CLUSTER_ZOOM_OFFSET)
+        @SuppressWarnings("unchecked")
+        final Map<Long, ClusterAggregate>[] clustersByZoom = new Map[MAX_ZOOM + CLUSTER_ZOOM_OFFSET + 1];
+
+        Aggregates() {
+            for (int zoom = 0; zoom < clustersByZoom.length; zoom++) {
+                clustersByZoom[zoom] = new HashMap<>();
+            }
+        }
+
+        void apply(LotState state, int sign) {
+            for (int zoom = CLUSTER_ZOOM_OFFSET; zoom < clustersByZoom.length; zoom++) {
+                long key = tileKey(tileX(state.longitude, zoom), tileY(state.latitude, zoom));
+                ClusterAggregate cluster = clustersByZoom[zoom].computeIfAbsent(key, k -> new ClusterAggregate());
+                cluster.lotCount += sign;
+                cluster.latitudeSum += sign * state.latitude;
+                cluster.longitudeSum += sign * state.longitude;
+                cluster.spotsAvailableSum += (long) sign * state.spotsAvailable;
+                if (cluster.lotCount == 0) {
+                    clustersByZoom[zoom].remove(key);
+                }
+            }
+        }
+
+        // Returns the lot's previous state
+        LotState replace(String parkingLotId, LotState state) {
+            LotState previous = state == null ? lots.remove(parkingLotId) : lots.put(parkingLotId, state);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            if (state != null) {
+                apply(state, 1);
+            }
+            return previous;
+        }
+
+        void updateSpotsAvailable(String parkingLotId, int spotsAvailable) {
+            LotState previous = lots.get(parkingLotId);
+            if (previous != null && previous.spotsAvailable != spotsAvailable) {
+                replace(parkingLotId, new LotState(previous.latitude, previous.longitude, spotsAvailable));
+            }
+        }
+    }
+
+    // Guarded by this
+    private Aggregates aggregates = new Aggregates();
+    // Guarded by this
+    private final RebuildChangeLog<Aggregates> changeLog = new RebuildChangeLog<>();
+
+    @Value("${parking.tiles.cache.max-entries:20000}")
+    private int maxCachedTiles;
+
+    // Rendered non-empty tiles keyed by cacheKey, guarded by itself, in access order for LRU eviction
+    private final LinkedHashMap<Long, List<TileClusterDTO>> tileCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<TileClusterDTO>> eldest) {
+            return size() > maxCachedTiles;
+        }
+    };
+
+    @Autowired
+    public ParkingLotTileService(ParkingLotRepository parkingLotRepository,
+                                 @Lazy AvailabilityStore availabilityStore) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.availabilityStore = availabilityStore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    @Transactional(readOnly = true)
+    public void initialize() {
+        rebuild();
+    }
+
+    @Scheduled(fixedRateString = "${parking.index.refresh.fixedRate:600000}", initialDelayString = "${parking.index.refresh.fixedRate:600000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (changeLog) {
+            synchronized (this) {
+                changeLog.start();
+            }
+            Aggregates rebuilt = new Aggregates();
+            try {
+                for (ParkingLot lot : parkingLotRepository.findByStatus(ParkingLotStatus.ACTIVE)) {
+                    LotState state = toState(lot);
+                    if (state != null) {
+                        rebuilt.replace(lot.getId(), state);
+                    }
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    changeLog.abandon();
+                }
+                throw e;
+            }
+            synchronized (this) {
+                changeLog.replayOnto(rebuilt);
+                aggregates = rebuilt;
+                synchronized (tileCache) {
+                    tileCache.clear();
+                }
+            }
+            logger.info("Map tile aggregates rebuilt with {} active parking lots.", rebuilt.lots.size());
+        }
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        String parkingLotId = parkingLot.getId();
+        boolean active = parkingLot.getStatus() == ParkingLotStatus.ACTIVE;
+        ParkingLotChangeListener.afterCommit(() -> replaceLot(parkingLotId, active ? parkingLot : null));
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        ParkingLotChangeListener.afterCommit(() -> replaceLot(parkingLotId, null));
+    }
+
+    @Override
+    public synchronized void onAvailabilityChanged(String parkingLotId, int spotsAvailable) {
+        LotState previous = aggregates.lots.get(parkingLotId);
+        if (previous != null && previous.spotsAvailable != spotsAvailable) {
+            replaceLive(parkingLotId, new LotState(previous.latitude, previous.longitude, spotsAvailable));
+        }
+        // Only the count is replayed, the rebuild may have read a newer location
+        changeLog.record(rebuilt -> rebuilt.updateSpotsAvailable(parkingLotId, spotsAvailable));
+    }
+
+    public List<TileClusterDTO> getTile(int zoom, int x, int y) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new InvalidDataException("Zoom level must be between 0 and " + MAX_ZOOM);
+        }
+        int tilesPerSide = 1 << zoom;
+        if (x < 0 || x >= tilesPerSide || y < 0 || y >= tilesPerSide) {
+            throw new InvalidDataException("Tile coordinates are out of range for zoom level " + zoom);
+        }
+
+        long cacheKey = cacheKey(zoom, x, y);
+        synchronized (tileCache) {
+            List<TileClusterDTO> cached = tileCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        synchronized (this) {
+            int clusterZoom = zoom + CLUSTER_ZOOM_OFFSET;
+            int clustersPerSide = 1 << CLUSTER_ZOOM_OFFSET;
+            Map<Long, ClusterAggregate> clusters = aggregates.clustersByZoom[clusterZoom];
+            List<TileClusterDTO> tile = new ArrayList<>();
+            for (int cx = x * clustersPerSide; cx < (x + 1) * clustersPerSide; cx++) {
+                for (int cy = y * clustersPerSide; cy < (y + 1) * clustersPerSide; cy++) {
+                    ClusterAggregate cluster = clusters.get(tileKey(cx, cy));
+                    if (cluster != null) {
+                        tile.add(new TileClusterDTO(
+                                cluster.latitudeSum / cluster.lotCount,
+                                cluster.longitudeSum / cluster.lotCount,
+                                cluster.lotCount,
+                                (int) cluster.spotsAvailableSum));
+                    }
+                }
+            }
+            if (tile.isEmpty()) {
+                // Most of the map is empty and cheap to render, so empty tiles never take cache slots
+                return List.of();
+            }
+            List<TileClusterDTO> rendered = Collections.unmodifiableList(tile);
+            synchronized (tileCache) {
+                tileCache.put(cacheKey, rendered);
+            }
+            return rendered;
+        }
+    }
+
+    private synchronized void replaceLot(String parkingLotId, ParkingLot parkingLot) {
+        // Read under the lock, so no availability change can land between the read and the swap
+        LotState state = parkingLot != null ? toState(parkingLot) : null;
+        replaceLive(parkingLotId, state);
+        changeLog.record(rebuilt -> rebuilt.replace(parkingLotId, state));
+    }
+
+    // Caller holds the lock
+    private void replaceLive(String parkingLotId, LotState state) {
+        LotState previous = aggregates.replace(parkingLotId, state);
+        if (previous != null) {
+            evictTiles(previous);
+        }
+        if (state != null) {
+            evictTiles(state);
+        }
+    }
+
+    private void evictTiles(LotState state) {
+        synchronized (tileCache) {
+            for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+                tileCache.remove(cacheKey(zoom, tileX(state.longitude, zoom), tileY(state.latitude, zoom)));
+            }
+        }
+    }
+
+    // Spot counts come from the live store, the lot's column can be one write-behind flush old
+    private LotState toState(ParkingLot lot) {
+        double latitude, longitude;
+        if (lot.getLatitude() != null && lot.getLongitude() != null) {
+            latitude = lot.getLatitude();
+            longitude = lot.getLongitude();
+        } else {
+            double[] coordinates = LocationUtils.parseCoordinates(lot.getGpsCoordinates());
+            if (coordinates == null) {
+                return null;
+            }
+            latitude = coordinates[0];
+            longitude = coordinates[1];
+        }
+        Integer liveSpotsAvailable = availabilityStore.getSpotsAvailable(lot);
+        int spotsAvailable = liveSpotsAvailable != null ? liveSpotsAvailable : 0;
+        return new LotState(latitude, longitude, spotsAvailable);
+    }
+
+    // Web Mercator (slippy map) tile numbering
+    private static int tileX(double longitude, int zoom) {
+        int tiles = 1 << zoom;
+        int x = (int) Math.floor((longitude + 180.0) / 360.0 * tiles);
+        return Math.min(Math.max(x, 0), tiles - 1);
+    }
+
+    private static int tileY(double latitude, int zoom) {
+        int tiles = 1 << zoom;
+        double clamped = Math.max(-MAX_MERCATOR_LATITUDE, Math.min(MAX_MERCATOR_LATITUDE, latitude));
+        double latRad = Math.toRadians(clamped);
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0 * tiles);
+        return Math.min(Math.max(y, 0), tiles - 1);
+    }
+
+    private static long tileKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    // Tile coordinates stay below 2^MAX_ZOOM, so 24 bits per coordinate leave room for the zoom
+    private static long cacheKey(int zoom, int x, int y) {
+        return ((long) zoom << 48) | ((long) x << 24) | y;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.DTOs.ExtensionPricingDTO;
+import com.example.licenta.DTOs.PriceCalendarDTO;
+import com.example.licenta.DTOs.PriceCalendarSegmentDTO;
+import com.example.licenta.Enum.ParkingLot.ExtensionPricingModel;
+import com.example.licenta.Exceptions.ResourceNotFoundException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weekly price calendar of each lot, derived from its compiled price schedule and kept until the
+ * lot changes. Every calendar carries an ETag of the lot version it was built from, so clients can
+ * revalidate without downloading it again. As in {@link QuoteCache}, a calendar built while the lot
+ * was being saved is not kept.
+ */
+@Service
+public class PriceCalendarService implements ParkingLotChangeListener {
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final PriceScheduleCache priceScheduleCache;
+
+    public static final class Calendar {
+        private final PriceCalendarDTO calendar;
+        private final String eTag;
+
+        Calendar(PriceCalendarDTO calendar, String eTag) {
+            this.calendar = calendar;
+            this.eTag = eTag;
+        }
+
+        public PriceCalendarDTO getCalendar() {
+            return calendar;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    private final Map<String, Calendar> calendars = new ConcurrentHashMap<>();
+    // Bumped on every change of a lot, so calendars built before it are not stored
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PriceCalendarService(ParkingLotRepository parkingLotRepository, PriceScheduleCache priceScheduleCache) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.priceScheduleCache = priceScheduleCache;
+    }
+
+    @Transactional(readOnly = true)
+    public Calendar getCalendar(String parkingLotId) {
+        Calendar cached = calendars.get(parkingLotId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = generations.getOrDefault(parkingLotId, 0L);
+        ParkingLot parkingLot = parkingLotRepository.findById(parkingLotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Parking Lot not found: " + parkingLotId));
+        PriceCalendarDTO calendar = build(parkingLot, priceScheduleCache.getSchedule(parkingLot));
+        Calendar built = new Calendar(calendar, eTag(calendar));
+        if (generations.getOrDefault(parkingLotId, 0L) == generation) {
+            calendars.put(parkingLotId, built);
+        }
+        return built;
+    }
+
+    public void invalidate(String parkingLotId) {
+        generations.merge(parkingLotId, 1L, Long::sum);
+        calendars.remove(parkingLotId);
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        String parkingLotId = parkingLot.getId();
+        invalidate(parkingLotId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Again once the change is visible, dropping calendars read from the previous version meanwhile
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(parkingLotId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        invalidate(parkingLotId);
+    }
+
+    private PriceCalendarDTO build(ParkingLot parkingLot, CompiledPriceSchedule schedule) {
+        List<PriceCalendarSegmentDTO> segments = new ArrayList<>();
+        for (CompiledPriceSchedule.Run run : schedule.getRuns()) {
+            Double price = run.getPrice();
+            Integer durationMinutes = run.getDurationMinutes() > 0 ? run.getDurationMinutes() : null;
+            Double hourlyRate = price == null ? null
+                    : durationMinutes == null ? price : price * 60.0 / durationMinutes;
+            segments.add(new PriceCalendarSegmentDTO(run.getStartMinuteOfWeek(), run.getEndMinuteOfWeek(),
+                    price, durationMinutes, hourlyRate));
+        }
+
+        boolean hasFreeTime = parkingLot.isHasFreeTime() && parkingLot.getFreeTimeMinutes() != null
+                && parkingLot.getFreeTimeMinutes() > 0;
+        return new PriceCalendarDTO(
+                parkingLot.getId(),
+                parkingLot.getPricingType(),
+                parkingLot.getUpdatedAt(),
+                hasFreeTime,
+                hasFreeTime ? parkingLot.getFreeTimeMinutes() : null,
+                segments,
+                extensionPricing(parkingLot.isAllowExtensionsForRegular(), parkingLot.getMaxExtensionTimeForRegular(),
+                        parkingLot.getExtensionPricingModelForRegular(), parkingLot.getExtensionPricingPercentageForRegular()),
+                extensionPricing(parkingLot.isAllowExtensionsForOnTheSpot(), parkingLot.getMaxExtensionTimeForOnTheSpot(),
+                        parkingLot.getExtensionPricingModelForOnTheSpot(), parkingLot.getExtensionPricingPercentageForOnTheSpot()));
+    }
+
+    // The surcharge ReservationService.calculateExtensionPrice applies
+    private ExtensionPricingDTO extensionPricing(boolean allowed, Integer maxExtensionMinutes,
+                                                 ExtensionPricingModel pricingModel, Double percentage) {
+        double surchargePercentage = pricingModel == ExtensionPricingModel.HIGHER && percentage != null ? percentage : 0.0;
+        return new ExtensionPricingDTO(allowed, maxExtensionMinutes, pricingModel, surchargePercentage);
+    }
+
+    // Strong ETag of the lot version, or of the content for lots that were never timestamped
+    private String eTag(PriceCalendarDTO calendar) {
+        OffsetDateTime version = calendar.getVersion();
+        String tag = version != null
+                ? Long.toHexString(version.toEpochSecond()) + "-" + Integer.toHexString(version.getNano())
+                : "h" + Integer.toHexString(calendar.hashCode());
+        return "\"" + tag + "\"";
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled price schedule of every parking lot that was priced since it last changed. A lot's
+ * schedule is recompiled from the saved entity whenever the lot is saved and swapped in once the
+ * save commits, and dropped with the lot.
+ */
+@Service
+public class PriceScheduleCache implements ParkingLotChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceScheduleCache.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+
+    private final Map<String, CompiledPriceSchedule> schedules = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PriceScheduleCache(ParkingLotRepository parkingLotRepository) {
+        this.parkingLotRepository = parkingLotRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public CompiledPriceSchedule getSchedule(String parkingLotId) {
+        CompiledPriceSchedule schedule = schedules.get(parkingLotId);
+        if (schedule != null) {
+            return schedule;
+        }
+        ParkingLot parkingLot = parkingLotRepository.findById(parkingLotId)
+                .orElseThrow(() -> new InvalidDataException("Parking lot not found"));
+        return store(parkingLotId, CompiledPriceSchedule.compile(parkingLot));
+    }
+
+    /**
+     * Schedule of a lot that is already loaded, compiled from it on a miss, or when the lot is a
+     * newer version than the cached schedule, instead of loading it again.
+     */
+    public CompiledPriceSchedule getSchedule(ParkingLot parkingLot) {
+        CompiledPriceSchedule schedule = schedules.get(parkingLot.getId());
+        if (schedule != null && !isOlderThan(schedule, parkingLot)) {
+            return schedule;
+        }
+        return store(parkingLot.getId(), CompiledPriceSchedule.compile(parkingLot));
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        try {
+            CompiledPriceSchedule compiled = CompiledPriceSchedule.compile(parkingLot);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public int getOrder() {
+                        // Ahead of caches built on top of the schedule, such as QuoteCache
+                        return Ordered.HIGHEST_PRECEDENCE;
+                    }
+
+                    @Override
+                    public void afterCommit() {
+                        store(parkingLot.getId(), compiled);
+                    }
+                });
+            } else {
+                store(parkingLot.getId(), compiled);
+            }
+        } catch (RuntimeException e) {
+            // Left to fail when the lot is priced, as it did before schedules were compiled
+            logger.warn("Could not compile price schedule of parking lot {}: {}", parkingLot.getId(), e.getMessage());
+            schedules.remove(parkingLot.getId());
+        }
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        schedules.remove(parkingLotId);
+    }
+
+    // Keeps whichever schedule was compiled from the more recent version of the lot
+    private CompiledPriceSchedule store(String parkingLotId, CompiledPriceSchedule compiled) {
+        return schedules.merge(parkingLotId, compiled, (current, candidate) -> isNewer(candidate, current) ? candidate : current);
+    }
+
+    private boolean isOlderThan(CompiledPriceSchedule schedule, ParkingLot parkingLot) {
+        OffsetDateTime lotVersion = parkingLot.getUpdatedAt();
+        OffsetDateTime scheduleVersion = schedule.getCompiledFrom();
+        return lotVersion != null && (scheduleVersion == null || scheduleVersion.isBefore(lotVersion));
+    }
+
+    private boolean isNewer(CompiledPriceSchedule candidate, CompiledPriceSchedule current) {
+        OffsetDateTime candidateVersion = candidate.getCompiledFrom();
+        OffsetDateTime currentVersion = current.getCompiledFrom();
+        return currentVersion == null || (candidateVersion != null && !candidateVersion.isBefore(currentVersion));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Models.ParkingLot;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Prices a stay at a parking lot. ReservationService picks one implementation for FIXED lots and
+ * one for DYNAMIC lots by name, from pricing.strategy.fixed and pricing.strategy.dynamic.
+ */
+public interface PricingStrategy {
+
+    String getName();
+
+    /**
+     * Price in RON of parking from startTime to endTime, with endTime after startTime.
+     */
+    double calculatePrice(ParkingLot parkingLot, OffsetDateTime startTime, OffsetDateTime endTime);
+}
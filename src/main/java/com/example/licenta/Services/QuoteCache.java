@@ -0,0 +1,182 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Models.ParkingLot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of price quotes keyed by lot and quoted period, with entries expiring after a
+ * TTL. Concurrent misses for the same key share a single computation. A lot's quotes are dropped
+ * whenever the lot is saved, and results computed before that are not stored.
+ */
+@Service
+public class QuoteCache implements ParkingLotChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteCache.class);
+
+    @Value("${quote.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${quote.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    public static final class Key {
+        private final String parkingLotId;
+        private final long startEpochSecond;
+        private final long endEpochSecond;
+        private final int offsetSeconds;
+
+        public Key(String parkingLotId, long startEpochSecond, long endEpochSecond, int offsetSeconds) {
+            this.parkingLotId = parkingLotId;
+            this.startEpochSecond = startEpochSecond;
+            this.endEpochSecond = endEpochSecond;
+            this.offsetSeconds = offsetSeconds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return startEpochSecond == key.startEpochSecond && endEpochSecond == key.endEpochSecond
+                    && offsetSeconds == key.offsetSeconds && parkingLotId.equals(key.parkingLotId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(parkingLotId, startEpochSecond, endEpochSecond, offsetSeconds);
+        }
+    }
+
+    private static final class Entry {
+        final Double price;
+        final long expiresAt;
+
+        Entry(Double price, long expiresAt) {
+            this.price = price;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Guarded by itself, in access order for LRU eviction
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final Map<Key, CompletableFuture<Double>> inFlight = new ConcurrentHashMap<>();
+    // Bumped on every invalidation of a lot, so computations that started before it are not stored
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public Double get(Key key, Supplier<Double> compute) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.price;
+                }
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<Double> computation = new CompletableFuture<>();
+        CompletableFuture<Double> running = inFlight.putIfAbsent(key, computation);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        long generation = generations.getOrDefault(key.parkingLotId, 0L);
+        try {
+            Double price = compute.get();
+            if (price != null && generations.getOrDefault(key.parkingLotId, 0L) == generation) {
+                synchronized (entries) {
+                    entries.put(key, new Entry(price, System.currentTimeMillis() + ttlMs));
+                }
+            }
+            computation.complete(price);
+            return price;
+        } catch (RuntimeException e) {
+            computation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, computation);
+        }
+    }
+
+    public void invalidate(String parkingLotId) {
+        generations.merge(parkingLotId, 1L, Long::sum);
+        inFlight.keySet().removeIf(key -> key.parkingLotId.equals(parkingLotId));
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.parkingLotId.equals(parkingLotId));
+        }
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+        String parkingLotId = parkingLot.getId();
+        invalidate(parkingLotId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Again once the change is visible, after PriceScheduleCache swapped in the new schedule
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(parkingLotId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        invalidate(parkingLotId);
+    }
+
+    @Scheduled(fixedRateString = "${quote.cache.stats.fixedRate:300000}")
+    public void logStats() {
+        long hitCount = hits.sumThenReset();
+        long missCount = misses.sumThenReset();
+        long coalescedCount = coalesced.sumThenReset();
+        if (hitCount + missCount == 0) {
+            return;
+        }
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        logger.info("Quote cache: {} hits, {} misses ({} coalesced), hit ratio {}%, {} entries.", hitCount, missCount,
+                coalescedCount, Math.round(hitCount * 100.0 / (hitCount + missCount)), size);
+    }
+
+    private Double await(CompletableFuture<Double> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
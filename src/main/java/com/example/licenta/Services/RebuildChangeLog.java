@@ -0,0 +1,38 @@
+package com.example.licenta.Services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Changes an in-memory index applied while a rebuild was reading the database. The rebuild may
+ * have read the lots before those changes committed, so they are replayed onto the rebuilt copy
+ * before it is swapped in. The index's own lock must guard {@link #start}, {@link #record} and
+ * {@link #replayOnto}. Rebuilds synchronize on the log itself, so two never overlap.
+ */
+final class RebuildChangeLog<T> {
+
+    // Null while no rebuild runs
+    private List<Consumer<T>> changes;
+
+    void start() {
+        changes = new ArrayList<>();
+    }
+
+    void record(Consumer<T> change) {
+        if (changes != null) {
+            changes.add(change);
+        }
+    }
+
+    void replayOnto(T rebuilt) {
+        if (changes != null) {
+            changes.forEach(change -> change.accept(rebuilt));
+        }
+        changes = null;
+    }
+
+    void abandon() {
+        changes = null;
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.Reservation.ReservationStatus;
+import com.example.licenta.Enum.Reservation.ReservationType;
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Models.Reservation;
+import com.example.licenta.Repositories.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory calendar of the STANDARD and DIRECT reservations holding a spot at each parking lot,
+ * used to refuse bookings that would put more cars in a lot than it has spots. Checks and updates
+ * for a lot run under one of a fixed set of striped locks, so bookings at different lots rarely
+ * contend. Reservation changes are mirrored through {@link ReservationCapacityListener} and undone
+ * again if their transaction rolls back.
+ */
+@Service
+public class ReservationCapacityCalendar implements ParkingLotChangeListener {
+
+    static final Set<ReservationStatus> HOLDING_STATUSES =
+            EnumSet.of(ReservationStatus.PENDING_PAYMENT, ReservationStatus.PAID, ReservationStatus.ACTIVE);
+    static final Set<ReservationType> SCHEDULED_TYPES = EnumSet.of(ReservationType.STANDARD, ReservationType.DIRECT);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationCapacityCalendar.class);
+
+    private final ReservationRepository reservationRepository;
+
+    private static final class Interval {
+        final long start;
+        final long end;
+
+        Interval(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean sameAs(Interval other) {
+            return other != null && start == other.start && end == other.end;
+        }
+    }
+
+    private static final class LotCalendar {
+        final CapacityTimeline timeline = new CapacityTimeline();
+        final Map<String, Interval> intervalsByReservation = new HashMap<>();
+
+        void put(String reservationId, Interval interval) {
+            Interval previous = interval != null
+                    ? intervalsByReservation.put(reservationId, interval)
+                    : intervalsByReservation.remove(reservationId);
+            if (previous != null) {
+                timeline.remove(previous.start, previous.end);
+            }
+            if (interval != null) {
+                timeline.add(interval.start, interval.end);
+            }
+        }
+    }
+
+    // A lot's calendar is only read or modified while holding its stripe lock
+    private final Map<String, LotCalendar> calendars = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+
+    @Autowired
+    public ReservationCapacityCalendar(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void initialize() {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Object[]> rows = reservationRepository.findCapacityIntervals(SCHEDULED_TYPES, HOLDING_STATUSES, now);
+        for (Object[] row : rows) {
+            String parkingLotId = (String) row[1];
+            Interval interval = new Interval(((OffsetDateTime) row[2]).toEpochSecond(), ((OffsetDateTime) row[3]).toEpochSecond());
+            ReentrantLock lock = lockFor(parkingLotId);
+            lock.lock();
+            try {
+                LotCalendar calendar = calendars.computeIfAbsent(parkingLotId, id -> new LotCalendar());
+                if (!calendar.intervalsByReservation.containsKey((String) row[0])) {
+                    calendar.put((String) row[0], interval);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        logger.info("Capacity calendar loaded {} reservations across {} parking lots.", rows.size(), calendars.size());
+    }
+
+    /**
+     * Checks that the lot can take the reservation for its whole period and records it, failing
+     * with {@link InvalidDataException} when it is fully booked at some point of that period.
+     */
+    public void reserve(Reservation reservation) {
+        Interval interval = intervalOf(reservation);
+        if (interval == null) {
+            return;
+        }
+        claim(reservation, interval, interval.start);
+    }
+
+    /**
+     * Checks that the lot has room for the reservation from its current end until newEndTime and
+     * records the longer period.
+     */
+    public void reserveExtension(Reservation reservation, OffsetDateTime newEndTime) {
+        Interval current = intervalOf(reservation);
+        if (current == null) {
+            return;
+        }
+        claim(reservation, new Interval(current.start, newEndTime.toEpochSecond()), current.end);
+    }
+
+    /**
+     * Highest number of reservations holding a spot at the lot at any moment in [start, end).
+     */
+    public int getPeakOccupancy(String parkingLotId, OffsetDateTime start, OffsetDateTime end) {
+        ReentrantLock lock = lockFor(parkingLotId);
+        lock.lock();
+        try {
+            LotCalendar calendar = calendars.get(parkingLotId);
+            return calendar == null ? 0 : calendar.timeline.maxOccupancy(start.toEpochSecond(), end.toEpochSecond());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mirrors the persisted state of a reservation without checking capacity.
+     */
+    public void sync(Reservation reservation) {
+        String parkingLotId = reservation.getParkingLot().getId();
+        Interval interval = intervalOf(reservation);
+        ReentrantLock lock = lockFor(parkingLotId);
+        lock.lock();
+        try {
+            LotCalendar calendar = calendars.get(parkingLotId);
+            Interval previous = calendar != null ? calendar.intervalsByReservation.get(reservation.getId()) : null;
+            if (interval == null ? previous == null : interval.sameAs(previous)) {
+                return;
+            }
+            replace(parkingLotId, reservation.getId(), previous, interval);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(Reservation reservation) {
+        String parkingLotId = reservation.getParkingLot().getId();
+        ReentrantLock lock = lockFor(parkingLotId);
+        lock.lock();
+        try {
+            LotCalendar calendar = calendars.get(parkingLotId);
+            Interval previous = calendar != null ? calendar.intervalsByReservation.get(reservation.getId()) : null;
+            if (previous != null) {
+                replace(parkingLotId, reservation.getId(), previous, null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.capacity.prune.fixedDelay:600000}")
+    public void pruneExpired() {
+        long now = OffsetDateTime.now().toEpochSecond();
+        int pruned = 0;
+        for (String parkingLotId : calendars.keySet()) {
+            ReentrantLock lock = lockFor(parkingLotId);
+            lock.lock();
+            try {
+                LotCalendar calendar = calendars.get(parkingLotId);
+                if (calendar == null) {
+                    continue;
+                }
+                List<String> expired = calendar.intervalsByReservation.entrySet().stream()
+                        .filter(entry -> entry.getValue().end <= now)
+                        .map(Map.Entry::getKey)
+                        .toList();
+                for (String reservationId : expired) {
+                    calendar.put(reservationId, null);
+                }
+                pruned += expired.size();
+                if (calendar.intervalsByReservation.isEmpty()) {
+                    calendars.remove(parkingLotId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (pruned > 0) {
+            logger.debug("Pruned {} ended reservations from the capacity calendar.", pruned);
+        }
+    }
+
+    @Override
+    public void onParkingLotSaved(ParkingLot parkingLot) {
+    }
+
+    @Override
+    public void onParkingLotDeleted(String parkingLotId) {
+        ReentrantLock lock = lockFor(parkingLotId);
+        lock.lock();
+        try {
+            calendars.remove(parkingLotId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void claim(Reservation reservation, Interval interval, long checkFrom) {
+        ParkingLot parkingLot = reservation.getParkingLot();
+        ReentrantLock lock = lockFor(parkingLot.getId());
+        lock.lock();
+        try {
+            LotCalendar calendar = calendars.get(parkingLot.getId());
+            Interval previous = calendar != null && reservation.getId() != null
+                    ? calendar.intervalsByReservation.get(reservation.getId())
+                    : null;
+            if (interval.sameAs(previous)) {
+                return;
+            }
+            Integer totalSpots = parkingLot.getTotalSpots();
+            if (totalSpots != null && checkFrom < interval.end) {
+                // The reservation's own previous period ends where an extension starts, so it is never counted here
+                int peak = calendar != null ? calendar.timeline.maxOccupancy(checkFrom, interval.end) : 0;
+                if (peak >= totalSpots) {
+                    throw new InvalidDataException("The parking lot is fully booked for the requested period.");
+                }
+            }
+            replace(parkingLot.getId(), reservation.getId(), previous, interval);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lot's stripe lock held
+    private void replace(String parkingLotId, String reservationId, Interval previous, Interval interval) {
+        calendars.computeIfAbsent(parkingLotId, id -> new LotCalendar()).put(reservationId, interval);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        undo(parkingLotId, reservationId, interval, previous);
+                    }
+                }
+            });
+        }
+    }
+
+    private void undo(String parkingLotId, String reservationId, Interval applied, Interval previous) {
+        ReentrantLock lock = lockFor(parkingLotId);
+        lock.lock();
+        try {
+            LotCalendar calendar = calendars.get(parkingLotId);
+            Interval current = calendar != null ? calendar.intervalsByReservation.get(reservationId) : null;
+            // Leave it alone if something later already replaced the rolled back change
+            if (current == applied) {
+                calendars.computeIfAbsent(parkingLotId, id -> new LotCalendar()).put(reservationId, previous);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Interval intervalOf(Reservation reservation) {
+        if (!SCHEDULED_TYPES.contains(reservation.getReservationType())
+                || !HOLDING_STATUSES.contains(reservation.getStatus())
+                || reservation.getStartTime() == null
+                || reservation.getEndTime() == null
+                || !reservation.getEndTime().isAfter(reservation.getStartTime())) {
+            return null;
+        }
+        return new Interval(reservation.getStartTime().toEpochSecond(), reservation.getEndTime().toEpochSecond());
+    }
+
+    private ReentrantLock lockFor(String parkingLotId) {
+        return stripes[Math.floorMod(parkingLotId.hashCode(), LOCK_STRIPES)];
+    }
+}
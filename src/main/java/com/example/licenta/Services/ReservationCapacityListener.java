@@ -0,0 +1,42 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.Reservation.ReservationStatus;
+import com.example.licenta.Models.Reservation;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Keeps the {@link ReservationCapacityCalendar} and the {@link SpotHoldService} in step with every
+ * reservation write, whichever service makes it. Instantiated by Hibernate through Spring's bean container.
+ */
+public class ReservationCapacityListener {
+
+    private final ReservationCapacityCalendar capacityCalendar;
+    private final SpotHoldService spotHoldService;
+
+    @Autowired
+    public ReservationCapacityListener(@Lazy ReservationCapacityCalendar capacityCalendar,
+                                       @Lazy SpotHoldService spotHoldService) {
+        this.capacityCalendar = capacityCalendar;
+        this.spotHoldService = spotHoldService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onReservationSaved(Reservation reservation) {
+        capacityCalendar.sync(reservation);
+        if (reservation.getStatus() != ReservationStatus.PENDING_PAYMENT) {
+            // Paid (payment_intent.succeeded and friends), failed or cancelled, the hold has done its job
+            spotHoldService.release(reservation.getId());
+        }
+    }
+
+    @PostRemove
+    public void onReservationRemoved(Reservation reservation) {
+        capacityCalendar.release(reservation);
+        spotHoldService.release(reservation.getId());
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.licenta.Services;
 
 import com.example.licenta.DTOs.*;
-import com.example.licenta.Enum.ParkingLot.DayOfWeek;
 import com.example.licenta.Enum.ParkingLot.ExtensionPricingModel;
 import com.example.licenta.Enum.ParkingLot.PricingType;
 import com.example.licenta.Enum.Reservation.ReservationStatus;
@@ -15,21 +14,21 @@ import com.example.licenta.Models.*;
 import com.example.licenta.Repositories.*;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
-import org.springframework.ai.chat.messages.SystemMessage;
-import org.springframework.ai.chat.messages.UserMessage;
-import org.springframework.ai.chat.model.ChatResponse;
-import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.openai.OpenAiChatModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeParseException;
@@ -40,36 +39,63 @@ import java.math.RoundingMode;
 @Service
 public class ReservationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
     private final ReservationRepository reservationRepository;
     private final ParkingLotRepository parkingLotRepository;
     private final UserRepository userRepository;
     private final ReservationMapper reservationMapper;
-    private final OpenAiChatModel openAiChatModel;
     private final EmailService emailService;
-    private static final Random random = new Random();
     private final GuestAccessTokenRepository guestAccessTokenRepository;
     private final ReviewRepository reviewRepository;
     private final StripeService stripeService;
+    private final ReservationCapacityCalendar capacityCalendar;
+    private final SpotHoldService spotHoldService;
+    private final PriceScheduleCache priceScheduleCache;
+    private final QuoteCache quoteCache;
+    private final PricingStrategy fixedPricingStrategy;
+    private final PricingStrategy dynamicPricingStrategy;
+
+    @Value("${quote.cache.dynamic-unit-minutes:15}")
+    private int dynamicQuoteUnitMinutes;
 
     @Autowired
     public ReservationService(ReservationRepository reservationRepository,
                               ParkingLotRepository parkingLotRepository,
                               UserRepository userRepository,
                               ReservationMapper reservationMapper,
-                              OpenAiChatModel openAiChatModel,
                               EmailService emailService,
                               ReviewRepository reviewRepository,
                               GuestAccessTokenRepository guestAccessTokenRepository,
-                              StripeService stripeService) {
+                              StripeService stripeService,
+                              ReservationCapacityCalendar capacityCalendar,
+                              SpotHoldService spotHoldService,
+                              PriceScheduleCache priceScheduleCache,
+                              QuoteCache quoteCache,
+                              List<PricingStrategy> pricingStrategies,
+                              @Value("${pricing.strategy.fixed:fixed}") String fixedStrategyName,
+                              @Value("${pricing.strategy.dynamic:rules}") String dynamicStrategyName) {
         this.reservationRepository = reservationRepository;
         this.parkingLotRepository = parkingLotRepository;
         this.userRepository = userRepository;
         this.reservationMapper = reservationMapper;
-        this.openAiChatModel = openAiChatModel;
         this.emailService = emailService;
         this.reviewRepository = reviewRepository;
         this.guestAccessTokenRepository = guestAccessTokenRepository;
         this.stripeService = stripeService;
+        this.capacityCalendar = capacityCalendar;
+        this.spotHoldService = spotHoldService;
+        this.priceScheduleCache = priceScheduleCache;
+        this.quoteCache = quoteCache;
+        this.fixedPricingStrategy = findPricingStrategy(pricingStrategies, fixedStrategyName);
+        this.dynamicPricingStrategy = findPricingStrategy(pricingStrategies, dynamicStrategyName);
+    }
+
+    private static PricingStrategy findPricingStrategy(List<PricingStrategy> pricingStrategies, String name) {
+        return pricingStrategies.stream()
+                .filter(strategy -> strategy.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown pricing strategy: " + name));
     }
 
     @Transactional
@@ -124,6 +150,8 @@ public class ReservationService {
         reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
 
         Reservation savedReservation = reservationRepository.save(reservation);
+        capacityCalendar.reserve(savedReservation);
+        spotHoldService.hold(savedReservation);
 
         return reservationMapper.toDTO(savedReservation);
     }
@@ -135,208 +163,142 @@ public class ReservationService {
         return reservationMapper.toDTO(reservation);
     }
 
+    /**
+     * Price of a new booking, refused when spot holds and reservations already fill the lot at some
+     * point of the period. Quotes are cached per exact period for fixed pricing, and per block of
+     * quote.cache.dynamic-unit-minutes for dynamic pricing.
+     */
     @Transactional(readOnly = true)
-    public Double calculatePrice(String parkingLotId, OffsetDateTime startTime, OffsetDateTime endTime) {
-        if (parkingLotId == null) {
-            throw new InvalidDataException("Parking lot ID is required.");
-        }
-        if (startTime == null || endTime == null) {
-            throw new InvalidDataException("Start time and end time are required.");
-        }
-
-        ParkingLot parkingLot = parkingLotRepository.findById(parkingLotId)
-                .orElseThrow(() -> new ResourceNotFoundException("Parking Lot not found: " + parkingLotId));
-
-        if (endTime.isBefore(startTime) || endTime.isEqual(startTime)) {
-            throw new InvalidDataException("End time must be after start time.");
-        }
-
-        if (parkingLot.getPricingType() == PricingType.DYNAMIC) {
-            try {
-                String systemMessageContent = "You are a parking price calculator." +
-                        "Given the parking lot details and the requested parking duration, " +
-                        "predict a fair market price in RON (Romanian Leu). Parking is not free. " +
-                        "Respond ONLY with the numerical price value (e.g., 25.50 or 30). Do not provide any other text or explanation. " +
-                        "For context, a short stay (1-2 hours) in a central urban lot might be 5-20 RON, while a longer stay in a peripheral lot might be 5-15 RON per few hours. " +
-                        "If you cannot determine a price, respond with a typical small non-zero placeholder like 10.00 rather than 0.00.";
-
-                String openAIPrompt = String.format(
-                        "Predict the parking price for the following:\n" +
-                                "Parking Lot Name: %s\n" +
-                                "Parking Lot Address (is in Romania): %s\n" +
-                                "Parking Lot Category: %s\n" +
-                                "Total Spots: %d\n" +
-                                "Available Spots: %d\n" +
-                                "Occupancy Rate: %.1f%%\n" +
-                                "Requested Start Time: %s\n" +
-                                "Requested End Time: %s\n" +
-                                "Parking Duration: %d hours\n" +
-                                "Current Date and Time (UTC): %s\n" +
-                                "Day of Week: %s\n" +
-                                "Consider factors like demand, time of day, day of the week, occupancy rate, and parking lot features for a dynamic price.",
-                        parkingLot.getName(),
-                        parkingLot.getAddress(),
-                        parkingLot.getCategory() != null ? parkingLot.getCategory().name() : "N/A",
-                        parkingLot.getTotalSpots() != null ? parkingLot.getTotalSpots() : 0,
-                        parkingLot.getSpotsAvailable(),
-                        calculateOccupancyRate(parkingLot),
-                        startTime.toString(),
-                        endTime.toString(),
-                        Duration.between(startTime, endTime).toMinutes(),
-                        OffsetDateTime.now().toString(),
-                        OffsetDateTime.now().getDayOfWeek().toString()
-                );
-
-                Prompt prompt = new Prompt(List.of(
-                        new SystemMessage(systemMessageContent),
-                        new UserMessage(openAIPrompt)
-                ));
-
-                ChatResponse response = openAiChatModel.call(prompt);
-                String predictedPriceStr = null;
-                if (response != null && response.getResult() != null && response.getResult().getOutput() != null) {
-                    predictedPriceStr = response.getResult().getOutput().getText().trim();
-                }
-
-                if (predictedPriceStr != null && !predictedPriceStr.isEmpty()) {
-                    String cleanedPriceStr = predictedPriceStr.replaceAll("[^0-9.]", "");
-                    if (cleanedPriceStr.isEmpty() || cleanedPriceStr.equals(".")) {
-                        System.err.println("AI model returned an invalid numeric string after cleaning: '" + predictedPriceStr + "'. Falling back to random price.");
-                        return generateRandomPrice(parkingLotId, startTime, endTime);
-                    }
-                    try {
-                        BigDecimal predictedPriceBd = new BigDecimal(cleanedPriceStr);
-                        predictedPriceBd = predictedPriceBd.setScale(2, RoundingMode.HALF_UP);
-                        Double predictedPrice = predictedPriceBd.doubleValue();
-                        System.out.println("AI Predicted Price: " + predictedPrice + " for Lot ID: " + parkingLotId + " Start: " + startTime + " End: " + endTime);
-                        return predictedPrice;
-                    } catch (NumberFormatException e) {
-                        System.err.println("Failed to parse AI predicted price: '" + cleanedPriceStr + "'. Error: " + e.getMessage() + ". Falling back to random price.");
-                        return generateRandomPrice(parkingLotId, startTime, endTime);
-                    }
-                } else {
-                    System.err.println("AI model did not return a valid price string. Falling back to random price.");
-                    return generateRandomPrice(parkingLotId, startTime, endTime);
-                }
-
-            } catch (Exception e) {
-                System.err.println("Error calling OpenAI model for dynamic pricing: " + e.getMessage());
-                return generateRandomPrice(parkingLotId, startTime, endTime);
-            }
-        } else {
-            System.out.println("Pricing type is not DYNAMIC (" + parkingLot.getPricingType() + "). Using fallback price generation.");
-            return calculateFixedPrice(parkingLotId, startTime, endTime);
+    public Double quotePrice(String parkingLotId, OffsetDateTime startTime, OffsetDateTime endTime) {
+        if (parkingLotId != null && startTime != null && endTime != null && endTime.isAfter(startTime)) {
+            ParkingLot parkingLot = parkingLotRepository.findById(parkingLotId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Parking Lot not found: " + parkingLotId));
+            return quoteLot(parkingLot, startTime, endTime);
         }
+        return calculatePrice(parkingLotId, startTime, endTime);
     }
 
-    private double calculateOccupancyRate(ParkingLot parkingLot) {
-        if (parkingLot.getTotalSpots() == null || parkingLot.getTotalSpots() == 0) return 0.0;
-        int occupied = parkingLot.getTotalSpots() - parkingLot.getSpotsAvailable();
-        return (occupied * 100.0) / parkingLot.getTotalSpots();
+    /**
+     * Quotes many periods at once, as {@link #quotePrice} would one by one. All lots are loaded with
+     * their price intervals in one query, their schedules are compiled up front, and the quotes are
+     * computed in parallel. Results are in request order, and a quote that fails carries its own
+     * status and error instead of failing the batch.
+     */
+    @Transactional(readOnly = true)
+    public List<PriceQuoteResultDTO> quotePrices(List<PriceQuoteRequestDTO> quotes) {
+        Set<String> parkingLotIds = quotes.stream()
+                .map(PriceQuoteRequestDTO::getParkingLotId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, ParkingLot> parkingLots = parkingLotRepository.findAllByIdFetchingPriceIntervals(parkingLotIds).stream()
+                .collect(Collectors.toMap(ParkingLot::getId, lot -> lot));
+        // Compiled here, inside the transaction, so the parallel quotes below never lazy-load the
+        // intervals' days from pool threads that have no session
+        parkingLots.values().forEach(priceScheduleCache::getSchedule);
+
+        return quotes.parallelStream()
+                .map(quote -> quoteBatchItem(quote, parkingLots.get(quote.getParkingLotId())))
+                .collect(Collectors.toList());
     }
 
-    private Double calculateFixedPrice(String parkingLotId, OffsetDateTime startTime, OffsetDateTime endTime) {
-        ParkingLot parkingLot = parkingLotRepository.findById(parkingLotId)
-                .orElseThrow(() -> new InvalidDataException("Parking lot not found"));
-
-        long totalMinutes = Duration.between(startTime, endTime).toMinutes();
-
-        OffsetDateTime billableStartTime = startTime;
-        if (parkingLot.isHasFreeTime() && parkingLot.getFreeTimeMinutes() != null && parkingLot.getFreeTimeMinutes() > 0) {
-            billableStartTime = startTime.plusMinutes(parkingLot.getFreeTimeMinutes());
-            if (billableStartTime.isAfter(endTime) || billableStartTime.isEqual(endTime)) {
-                return 0.0;
+    private PriceQuoteResultDTO quoteBatchItem(PriceQuoteRequestDTO quote, ParkingLot parkingLot) {
+        PriceQuoteResultDTO result = new PriceQuoteResultDTO(quote.getParkingLotId(), quote.getStartTime(), quote.getEndTime(),
+                null, HttpStatus.OK.value(), null);
+        try {
+            if (parkingLot == null) {
+                throw new ResourceNotFoundException("Parking Lot not found: " + quote.getParkingLotId());
             }
-        }
-
-        double totalPrice = 0.0;
-        OffsetDateTime currentTime = billableStartTime;
-
-        while (currentTime.isBefore(endTime)) {
-            DayOfWeek currentDay = getDayOfWeekFromOffsetDateTime(currentTime);
-
-            PriceInterval applicableInterval = findApplicablePriceInterval(
-                    parkingLot.getPriceIntervals(),
-                    currentTime,
-                    currentDay
-            );
-
-            if (applicableInterval == null) {
-                throw new InvalidDataException("No price interval found for the given time and day");
+            OffsetDateTime startTime;
+            OffsetDateTime endTime;
+            try {
+                startTime = OffsetDateTime.parse(quote.getStartTime());
+                endTime = OffsetDateTime.parse(quote.getEndTime());
+            } catch (DateTimeParseException e) {
+                throw new InvalidDataException("Invalid date format. Please use ISO 8601 format.");
             }
-
-            OffsetDateTime intervalEndTime = getIntervalEndTime(currentTime, applicableInterval, endTime);
-            long intervalMinutes = Duration.between(currentTime, intervalEndTime).toMinutes();
-
-            if (applicableInterval.getDuration() != null && applicableInterval.getDuration() > 0) {
-                double durationUnits = Math.ceil((double) intervalMinutes / applicableInterval.getDuration());
-                totalPrice += durationUnits * applicableInterval.getPrice();
-            } else {
-                totalPrice += (intervalMinutes / 60.0) * applicableInterval.getPrice();
+            if (!endTime.isAfter(startTime)) {
+                throw new InvalidDataException("End time must be after start time.");
             }
+            result.setTotalAmount(quoteLot(parkingLot, startTime, endTime));
+        } catch (ResourceNotFoundException e) {
+            result.setStatus(HttpStatus.NOT_FOUND.value());
+            result.setError(e.getMessage());
+        } catch (InvalidDataException e) {
+            result.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            result.setError(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Failed to quote parking lot {} from {} to {}", quote.getParkingLotId(), quote.getStartTime(),
+                    quote.getEndTime(), e);
+            result.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            result.setError("Price could not be calculated.");
+        }
+        return result;
+    }
 
-            currentTime = intervalEndTime;
+    private Double quoteLot(ParkingLot parkingLot, OffsetDateTime startTime, OffsetDateTime endTime) {
+        String parkingLotId = parkingLot.getId();
+        Integer totalSpots = parkingLot.getTotalSpots();
+        if (totalSpots != null && capacityCalendar.getPeakOccupancy(parkingLotId, startTime, endTime) >= totalSpots) {
+            throw new InvalidDataException("The parking lot is fully booked for the requested period.");
         }
 
-        return totalPrice;
+        // Fixed prices are quoted for the exact stay. Dynamic quotes are shared by slider positions within
+        // one pricing block: start rounded down and end rounded up, so the quote covers the whole stay.
+        OffsetDateTime quoteStart = startTime;
+        OffsetDateTime quoteEnd = endTime.withOffsetSameInstant(startTime.getOffset());
+        if (parkingLot.getPricingType() == PricingType.DYNAMIC) {
+            long unitSeconds = dynamicQuoteUnitMinutes * 60L;
+            quoteStart = truncateToUnit(quoteStart, unitSeconds);
+            quoteEnd = roundUpToUnit(quoteEnd, unitSeconds);
+        } else if (quoteStart.getNano() != 0 || quoteEnd.getNano() != 0) {
+            // Keys hold whole seconds, so sub-second periods are priced without the cache
+            return priceLot(parkingLot, quoteStart, quoteEnd);
+        }
+        QuoteCache.Key key = new QuoteCache.Key(parkingLotId, quoteStart.toEpochSecond(), quoteEnd.toEpochSecond(),
+                startTime.getOffset().getTotalSeconds());
+        OffsetDateTime start = quoteStart;
+        OffsetDateTime end = quoteEnd;
+        return quoteCache.get(key, () -> priceLot(parkingLot, start, end));
     }
 
-    private DayOfWeek getDayOfWeekFromOffsetDateTime(OffsetDateTime dateTime) {
-        java.time.DayOfWeek javaDayOfWeek = dateTime.getDayOfWeek();
-        switch (javaDayOfWeek) {
-            case MONDAY: return DayOfWeek.MONDAY;
-            case TUESDAY: return DayOfWeek.TUESDAY;
-            case WEDNESDAY: return DayOfWeek.WEDNESDAY;
-            case THURSDAY: return DayOfWeek.THURSDAY;
-            case FRIDAY: return DayOfWeek.FRIDAY;
-            case SATURDAY: return DayOfWeek.SATURDAY;
-            case SUNDAY: return DayOfWeek.SUNDAY;
-            default: throw new InvalidDataException("Invalid day of week");
-        }
+    private OffsetDateTime truncateToUnit(OffsetDateTime time, long unitSeconds) {
+        long epochSecond = time.toEpochSecond();
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond - Math.floorMod(epochSecond, unitSeconds)), time.getOffset());
     }
 
-    private PriceInterval findApplicablePriceInterval(List<PriceInterval> intervals, OffsetDateTime currentTime, DayOfWeek dayOfWeek) {
-        String timeString = String.format("%02d:%02d", currentTime.getHour(), currentTime.getMinute());
+    private OffsetDateTime roundUpToUnit(OffsetDateTime time, long unitSeconds) {
+        OffsetDateTime truncated = truncateToUnit(time, unitSeconds);
+        return truncated.isBefore(time) ? truncated.plusSeconds(unitSeconds) : truncated;
+    }
 
-        for (PriceInterval interval : intervals) {
-            if (interval.getDays().contains(dayOfWeek)) {
-                if (isTimeWithinInterval(timeString, interval.getStartTime(), interval.getEndTime())) {
-                    return interval;
-                }
-            }
+    @Transactional(readOnly = true)
+    public Double calculatePrice(String parkingLotId, OffsetDateTime startTime, OffsetDateTime endTime) {
+        if (parkingLotId == null) {
+            throw new InvalidDataException("Parking lot ID is required.");
+        }
+        if (startTime == null || endTime == null) {
+            throw new InvalidDataException("Start time and end time are required.");
         }
-        return null;
-    }
 
-    private boolean isTimeWithinInterval(String currentTime, String startTime, String endTime) {
-        int current = timeToMinutes(currentTime);
-        int start = timeToMinutes(startTime);
-        int end = timeToMinutes(endTime);
+        ParkingLot parkingLot = parkingLotRepository.findById(parkingLotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Parking Lot not found: " + parkingLotId));
 
-        if (end < start) {
-            return current >= start || current < end;
-        } else {
-            return current >= start && current < end;
+        if (endTime.isBefore(startTime) || endTime.isEqual(startTime)) {
+            throw new InvalidDataException("End time must be after start time.");
         }
-    }
 
-    private int timeToMinutes(String time) {
-        String[] parts = time.split(":");
-        return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
+        return priceLot(parkingLot, startTime, endTime);
     }
 
-    private OffsetDateTime getIntervalEndTime(OffsetDateTime currentTime, PriceInterval interval, OffsetDateTime endTime) {
-        String[] endTimeParts = interval.getEndTime().split(":");
-        int endHour = Integer.parseInt(endTimeParts[0]);
-        int endMinute = Integer.parseInt(endTimeParts[1]);
-
-        OffsetDateTime intervalEnd = currentTime.withHour(endHour).withMinute(endMinute).withSecond(0).withNano(0);
-
-        if (intervalEnd.isBefore(currentTime) || intervalEnd.isEqual(currentTime)) {
-            intervalEnd = intervalEnd.plusDays(1);
-        }
+    private Double priceLot(ParkingLot parkingLot, OffsetDateTime startTime, OffsetDateTime endTime) {
+        PricingStrategy strategy = parkingLot.getPricingType() == PricingType.DYNAMIC
+                ? dynamicPricingStrategy
+                : fixedPricingStrategy;
+        return strategy.calculatePrice(parkingLot, startTime, endTime);
+    }
 
-        return intervalEnd.isBefore(endTime) ? intervalEnd : endTime;
+    private Double calculateFixedPrice(String parkingLotId, OffsetDateTime startTime, OffsetDateTime endTime) {
+        return priceScheduleCache.getSchedule(parkingLotId).priceFor(startTime, endTime);
     }
 
     public boolean canExtendReservation(String parkingLotId, ReservationType reservationType) {
@@ -492,6 +454,7 @@ public class ReservationService {
                 currentEndTime,
                 newEndTime
         );
+        capacityCalendar.reserveExtension(reservation, newEndTime);
 
         if (reservation.getStatus() == ReservationStatus.PAID) {
             try {
@@ -688,15 +651,6 @@ public class ReservationService {
         return originalPrice + extensionPrice;
     }
 
-    private Double generateRandomPrice(String parkingLotId, OffsetDateTime startTime, OffsetDateTime endTime) {
-        double randomPriceValue = 1.0 + (100.0 * random.nextDouble());
-        BigDecimal priceBd = BigDecimal.valueOf(randomPriceValue);
-        priceBd = priceBd.setScale(2, RoundingMode.HALF_UP);
-        Double price = priceBd.doubleValue();
-        System.out.println("Generated Fallback/Mock Price: " + price + " for Lot ID: " + parkingLotId + " Start: " + startTime + " End: " + endTime);
-        return price;
-    }
-
     @Transactional(readOnly = true)
     public Page<ReservationDTO> getReservationsByUserId(String userId, List<ReservationType> types, Pageable pageable) {
         userRepository.findById(userId)
@@ -1003,6 +957,12 @@ public class ReservationService {
             throw new InvalidDataException("Reservation of type " + reservation.getReservationType() + " must have an end time for payment processing.");
         }
 
+        if (reservation.getStatus() == ReservationStatus.PAYMENT_FAILED) {
+            // A failed payment gave the spot up, a retry has to win it back before charging again
+            reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+            capacityCalendar.reserve(reservation);
+        }
+
         User user = reservation.getUser();
         ParkingLot parkingLot = reservation.getParkingLot();
         Double pointsToUse = (paymentRequest != null && paymentRequest.getPointsToUse() != null) ? paymentRequest.getPointsToUse() : 0.0;
@@ -1053,6 +1013,7 @@ public class ReservationService {
             reservation.setPointsUsed(pointsToUse);
             reservation.setFinalAmount(finalAmountCustomerPays);
             reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+            spotHoldService.hold(reservation);
 
             Reservation updatedReservation = reservationRepository.save(reservation);
             if (user != null && (user.getStripeCustomerId() == null || !user.getStripeCustomerId().equals(stripeCustomerId) || !Objects.equals(user.getStripeCustomerId(), stripeCustomerId))) {
@@ -0,0 +1,197 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Config.PricingRulesProperties;
+import com.example.licenta.Enum.ParkingLot.ParkingLotCategory;
+import com.example.licenta.Models.ParkingLot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dynamic pricing computed in process from configured rules. The lot's own price intervals give
+ * the base price, or the default hourly rate when it has none, scaled by one multiplier: the
+ * time-weighted demand of the hours parked, the owner's elasticity at the lot's live occupancy and
+ * the category factor, clamped to the configured bounds. All tables are built once at startup, so
+ * a quote costs about as much as a fixed one and the same inputs always give the same price.
+ */
+@Service
+public class RuleBasedPricingStrategy implements PricingStrategy {
+
+    public static final String NAME = "rules";
+
+    static final int HOURS_PER_WEEK = 7 * 24;
+    // 1970-01-01 was a Thursday, 72 hours after a Monday
+    private static final long EPOCH_HOUR_OF_WEEK = 72;
+    private static final int WEEKEND_FIRST_HOUR = 5 * 24;
+    // Elasticity is tabulated per percent of occupancy
+    private static final int ELASTICITY_STEPS = 100;
+
+    private final PriceScheduleCache priceScheduleCache;
+    private final AvailabilityStore availabilityStore;
+
+    private final double defaultHourlyRate;
+    private final double minMultiplier;
+    private final double maxMultiplier;
+    private final double[] demandByHourOfWeek;
+    // demandPrefix[h] is the demand integrated over the seconds of the week before hour h
+    private final double[] demandPrefix;
+    private final Map<ParkingLotCategory, Double> categoryFactors;
+    private final float[] defaultElasticity;
+    private final Map<String, float[]> ownerElasticity = new HashMap<>();
+
+    @Autowired
+    public RuleBasedPricingStrategy(PriceScheduleCache priceScheduleCache,
+                                    AvailabilityStore availabilityStore,
+                                    PricingRulesProperties properties) {
+        this.priceScheduleCache = priceScheduleCache;
+        this.availabilityStore = availabilityStore;
+        this.defaultHourlyRate = properties.getDefaultHourlyRate();
+        this.minMultiplier = properties.getMinMultiplier();
+        this.maxMultiplier = properties.getMaxMultiplier();
+        if (!(minMultiplier > 0) || maxMultiplier < minMultiplier) {
+            throw new IllegalStateException("pricing.rules multiplier bounds must satisfy 0 < min-multiplier <= max-multiplier");
+        }
+
+        double[] weekday = hourly(properties.getWeekdayDemand(), "weekday-demand");
+        double[] weekend = hourly(properties.getWeekendDemand(), "weekend-demand");
+        this.demandByHourOfWeek = new double[HOURS_PER_WEEK];
+        for (int hourOfWeek = 0; hourOfWeek < HOURS_PER_WEEK; hourOfWeek++) {
+            demandByHourOfWeek[hourOfWeek] = (hourOfWeek >= WEEKEND_FIRST_HOUR ? weekend : weekday)[hourOfWeek % 24];
+        }
+        this.demandPrefix = new double[HOURS_PER_WEEK + 1];
+        for (int hourOfWeek = 0; hourOfWeek < HOURS_PER_WEEK; hourOfWeek++) {
+            demandPrefix[hourOfWeek + 1] = demandPrefix[hourOfWeek] + demandByHourOfWeek[hourOfWeek] * 3600;
+        }
+
+        this.categoryFactors = new EnumMap<>(ParkingLotCategory.class);
+        for (ParkingLotCategory category : ParkingLotCategory.values()) {
+            categoryFactors.put(category, properties.getCategoryFactors().getOrDefault(category, 1.0));
+        }
+
+        this.defaultElasticity = compileCurve(properties.getDefaultElasticity(), "default-elasticity");
+        properties.getOwnerElasticity().forEach((ownerId, curve) ->
+                ownerElasticity.put(ownerId, compileCurve(curve, "owner-elasticity." + ownerId)));
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double calculatePrice(ParkingLot parkingLot, OffsetDateTime startTime, OffsetDateTime endTime) {
+        CompiledPriceSchedule schedule = priceScheduleCache.getSchedule(parkingLot);
+        double basePrice = schedule.isEmpty()
+                ? defaultHourlyRate * (endTime.toEpochSecond() - startTime.toEpochSecond()) / 3600.0
+                : schedule.priceFor(startTime, endTime);
+
+        double multiplier = demand(startTime, endTime) * elasticity(parkingLot) * category(parkingLot);
+        multiplier = Math.max(minMultiplier, Math.min(maxMultiplier, multiplier));
+        // Rounded to bani without BigDecimal, prices are never negative
+        return Math.round(basePrice * multiplier * 100) / 100.0;
+    }
+
+    // Mean demand factor over the period, each wall-clock hour weighted by the seconds parked in it
+    private double demand(OffsetDateTime startTime, OffsetDateTime endTime) {
+        long offsetSeconds = startTime.getOffset().getTotalSeconds();
+        long start = startTime.toEpochSecond() + offsetSeconds;
+        long end = endTime.toEpochSecond() + offsetSeconds;
+        if (end <= start) {
+            return 1.0;
+        }
+        return (cumulativeDemand(end) - cumulativeDemand(start)) / (end - start);
+    }
+
+    // Demand factor integrated over seconds, from the Monday 00:00 before the epoch to a local epoch second
+    private double cumulativeDemand(long localEpochSecond) {
+        long secondsSinceMonday = localEpochSecond + EPOCH_HOUR_OF_WEEK * 3600;
+        long weeks = Math.floorDiv(secondsSinceMonday, HOURS_PER_WEEK * 3600L);
+        long secondOfWeek = Math.floorMod(secondsSinceMonday, HOURS_PER_WEEK * 3600L);
+        int hourOfWeek = (int) (secondOfWeek / 3600);
+        return weeks * demandPrefix[HOURS_PER_WEEK] + demandPrefix[hourOfWeek]
+                + demandByHourOfWeek[hourOfWeek] * (secondOfWeek - hourOfWeek * 3600L);
+    }
+
+    // Neutral when the lot's occupancy is unknown
+    private double elasticity(ParkingLot parkingLot) {
+        Integer totalSpots = parkingLot.getTotalSpots();
+        Integer spotsAvailable = availabilityStore.getSpotsAvailable(parkingLot);
+        if (totalSpots == null || totalSpots <= 0 || spotsAvailable == null) {
+            return 1.0;
+        }
+        int occupied = totalSpots - Math.max(0, Math.min(spotsAvailable, totalSpots));
+        float[] curve = defaultElasticity;
+        if (parkingLot.getOwner() != null && !ownerElasticity.isEmpty()) {
+            curve = ownerElasticity.getOrDefault(parkingLot.getOwner().getId(), defaultElasticity);
+        }
+        return curve[(int) ((long) occupied * ELASTICITY_STEPS / totalSpots)];
+    }
+
+    private double category(ParkingLot parkingLot) {
+        return parkingLot.getCategory() != null ? categoryFactors.get(parkingLot.getCategory()) : 1.0;
+    }
+
+    private static double[] hourly(List<Double> factors, String property) {
+        if (factors == null || factors.size() != 24) {
+            throw new IllegalStateException("pricing.rules." + property + " must list 24 hourly demand factors");
+        }
+        double[] hourly = new double[24];
+        for (int hour = 0; hour < 24; hour++) {
+            Double factor = factors.get(hour);
+            if (factor == null || !(factor > 0)) {
+                throw new IllegalStateException("pricing.rules." + property + " factors must be positive");
+            }
+            hourly[hour] = factor;
+        }
+        return hourly;
+    }
+
+    // Samples the piecewise-linear curve at every percent of occupancy, flat beyond its end points
+    private static float[] compileCurve(String curve, String property) {
+        String[] points = curve == null ? new String[0] : curve.split(",");
+        double[] occupancies = new double[points.length];
+        double[] multipliers = new double[points.length];
+        try {
+            for (int i = 0; i < points.length; i++) {
+                String[] parts = points[i].trim().split(":");
+                occupancies[i] = Double.parseDouble(parts[0].trim());
+                multipliers[i] = Double.parseDouble(parts[1].trim());
+                if (occupancies[i] < 0 || occupancies[i] > 1 || !(multipliers[i] > 0)
+                        || (i > 0 && occupancies[i] <= occupancies[i - 1])) {
+                    throw new IllegalStateException("pricing.rules." + property
+                            + " needs increasing occupancies between 0 and 1 and positive multipliers: '" + curve + "'");
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("pricing.rules." + property + " is not a list of occupancy:multiplier points: '" + curve + "'");
+        }
+        if (points.length == 0) {
+            throw new IllegalStateException("pricing.rules." + property + " has no points");
+        }
+
+        float[] table = new float[ELASTICITY_STEPS + 1];
+        int segment = 0;
+        for (int step = 0; step <= ELASTICITY_STEPS; step++) {
+            double occupancy = step / (double) ELASTICITY_STEPS;
+            while (segment < points.length - 1 && occupancies[segment + 1] <= occupancy) {
+                segment++;
+            }
+            double multiplier;
+            if (occupancy <= occupancies[0]) {
+                multiplier = multipliers[0];
+            } else if (segment == points.length - 1) {
+                multiplier = multipliers[segment];
+            } else {
+                double fraction = (occupancy - occupancies[segment]) / (occupancies[segment + 1] - occupancies[segment]);
+                multiplier = multipliers[segment] + fraction * (multipliers[segment + 1] - multipliers[segment]);
+            }
+            table[step] = (float) multiplier;
+        }
+        return table;
+    }
+}
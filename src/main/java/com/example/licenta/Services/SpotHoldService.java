@@ -0,0 +1,217 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.Reservation.ReservationStatus;
+import com.example.licenta.Models.Reservation;
+import com.example.licenta.Repositories.ReservationRepository;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time-limited holds on the spot of a STANDARD or DIRECT reservation that is waiting for payment.
+ * While a hold is live the reservation counts against the lot in the {@link ReservationCapacityCalendar};
+ * when it expires without the payment going through, the reservation is cancelled and the spot is
+ * freed. Deadlines are kept in a {@link HoldTimingWheel}, and due holds are expired on a small
+ * dedicated pool because expiring one calls Stripe. A hold ends as soon as its reservation leaves
+ * PENDING_PAYMENT, which {@link ReservationCapacityListener} reports.
+ */
+@Service
+public class SpotHoldService {
+
+    // Payment intent states in which the customer's payment may still complete
+    private static final Set<String> SETTLING_PAYMENT_STATUSES = Set.of("succeeded", "processing", "requires_capture");
+
+    private static final Logger logger = LoggerFactory.getLogger(SpotHoldService.class);
+
+    private final ReservationRepository reservationRepository;
+    private final StripeService stripeService;
+    private final TransactionTemplate transactionTemplate;
+    private final HoldTimingWheel wheel;
+    private final ThreadPoolExecutor expirer;
+
+    @Value("${reservation.hold.ttl-ms:900000}")
+    private long ttlMs;
+
+    // Reservations with a live hold
+    private final Set<String> holds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public SpotHoldService(ReservationRepository reservationRepository,
+                           StripeService stripeService,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${reservation.hold.tick-ms:1000}") long tickMs,
+                           @Value("${reservation.hold.wheel-size:512}") int wheelSize,
+                           @Value("${reservation.hold.expiry.threads:4}") int expiryThreads,
+                           @Value("${reservation.hold.expiry.queue-capacity:1000}") int expiryQueueCapacity) {
+        this.reservationRepository = reservationRepository;
+        this.stripeService = stripeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.wheel = new HoldTimingWheel(tickMs, wheelSize, System.currentTimeMillis());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.expirer = new ThreadPoolExecutor(Math.max(1, expiryThreads), Math.max(1, expiryThreads),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, expiryQueueCapacity)), runnable -> {
+            Thread thread = new Thread(runnable, "spot-hold-expiry-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void initialize() {
+        List<Reservation> pending = reservationRepository.findByStatusAndReservationTypeIn(
+                ReservationStatus.PENDING_PAYMENT, ReservationCapacityCalendar.SCHEDULED_TYPES);
+        for (Reservation reservation : pending) {
+            if (reservation.getEndTime() != null) {
+                // Checkout activity bumps updatedAt, so the hold runs from the last of it
+                OffsetDateTime heldSince = reservation.getUpdatedAt() != null ? reservation.getUpdatedAt() : reservation.getCreatedAt();
+                put(reservation.getId(), heldSince.toInstant().toEpochMilli() + ttlMs);
+            }
+        }
+        logger.info("Restored {} spot holds for reservations awaiting payment.", holds.size());
+    }
+
+    /**
+     * Starts or renews the hold of a reservation awaiting payment, once the current transaction commits.
+     */
+    public void hold(Reservation reservation) {
+        if (reservation.getStatus() != ReservationStatus.PENDING_PAYMENT
+                || !ReservationCapacityCalendar.SCHEDULED_TYPES.contains(reservation.getReservationType())
+                || reservation.getEndTime() == null) {
+            return;
+        }
+        String reservationId = reservation.getId();
+        afterCommit(() -> put(reservationId, System.currentTimeMillis() + ttlMs));
+    }
+
+    /**
+     * Ends the hold without expiring it, after the reservation was paid, failed or was cancelled.
+     */
+    public void release(String reservationId) {
+        afterCommit(() -> remove(reservationId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        expirer.shutdownNow();
+    }
+
+    /**
+     * Hands due holds to the expiry pool, so the Stripe calls they make never block the shared scheduler.
+     */
+    @Scheduled(fixedDelayString = "${reservation.hold.tick-ms:1000}")
+    public void expireDueHolds() {
+        for (String reservationId : wheel.advance(System.currentTimeMillis())) {
+            try {
+                expirer.execute(() -> expireSafely(reservationId));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Spot hold expiry queue is full, retrying reservation {} later.", reservationId);
+                renew(reservationId);
+            }
+        }
+    }
+
+    private void expireSafely(String reservationId) {
+        try {
+            expire(reservationId);
+        } catch (RuntimeException e) {
+            logger.error("Failed to expire spot hold of reservation {}: {}", reservationId, e.getMessage());
+            renew(reservationId);
+        }
+    }
+
+    private void expire(String reservationId) {
+        Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+        if (reservation == null || reservation.getStatus() != ReservationStatus.PENDING_PAYMENT) {
+            remove(reservationId);
+            return;
+        }
+
+        String paymentIntentId = reservation.getStripePaymentIntentId();
+        if (paymentIntentId != null) {
+            try {
+                PaymentIntent paymentIntent = stripeService.retrievePaymentIntent(paymentIntentId);
+                if (SETTLING_PAYMENT_STATUSES.contains(paymentIntent.getStatus())) {
+                    // The payment webhook is on its way and will confirm the reservation
+                    renew(reservationId);
+                    return;
+                }
+                if (!"canceled".equals(paymentIntent.getStatus())) {
+                    stripeService.cancelPaymentIntent(paymentIntentId);
+                }
+            } catch (StripeException e) {
+                logger.warn("Could not cancel PaymentIntent {} of expired hold {}, retrying later: {}",
+                        paymentIntentId, reservationId, e.getMessage());
+                renew(reservationId);
+                return;
+            }
+        }
+
+        Boolean cancelled = transactionTemplate.execute(status -> {
+            Reservation current = reservationRepository.findById(reservationId).orElse(null);
+            if (current == null || current.getStatus() != ReservationStatus.PENDING_PAYMENT) {
+                return false;
+            }
+            current.setStatus(ReservationStatus.CANCELLED);
+            current.setUpdatedAt(OffsetDateTime.now());
+            reservationRepository.save(current);
+            return true;
+        });
+        remove(reservationId);
+        if (Boolean.TRUE.equals(cancelled)) {
+            logger.info("Spot hold of reservation {} expired before payment. Reservation cancelled.", reservationId);
+        }
+    }
+
+    private void renew(String reservationId) {
+        if (holds.contains(reservationId)) {
+            wheel.schedule(reservationId, System.currentTimeMillis() + ttlMs);
+        }
+    }
+
+    private void put(String reservationId, long deadlineMs) {
+        holds.add(reservationId);
+        wheel.schedule(reservationId, deadlineMs);
+    }
+
+    private void remove(String reservationId) {
+        wheel.cancel(reservationId);
+        holds.remove(reservationId);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -407,4 +407,8 @@ public class StripeService {
         return PaymentIntent.retrieve(paymentIntentId);
     }
 
+    public PaymentIntent cancelPaymentIntent(String paymentIntentId) throws StripeException {
+        return PaymentIntent.retrieve(paymentIntentId).cancel();
+    }
+
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package com.example.licenta.Utils;
 
+import java.util.Arrays;
+
 public class LocationUtils {
 
     private static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double METERS_PER_DEGREE_LATITUDE = 111_320.0;
 
     public static double calculateDistanceInMeters(double lat1, double lon1, double lat2, double lon2) {
         double dLat = Math.toRadians(lat2 - lat1);
@@ -17,4 +20,86 @@ public class LocationUtils {
 
         return EARTH_RADIUS_KM * c * 1000;
     }
-}
\ No newline at end of file
+
+    /**
+     * Parses a "latitude,longitude" string. Returns null when the value is missing or malformed.
+     */
+    public static double[] parseCoordinates(String gpsCoordinates) {
+        if (gpsCoordinates == null || gpsCoordinates.trim().isEmpty()) {
+            return null;
+        }
+        String[] coords = gpsCoordinates.split(",");
+        if (coords.length != 2) {
+            return null;
+        }
+        try {
+            double latitude = Double.parseDouble(coords[0].trim());
+            double longitude = Double.parseDouble(coords[1].trim());
+            if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+                return null;
+            }
+            return new double[]{latitude, longitude};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Longitude span (in degrees) covering the given distance at the given latitude.
+     */
+    public static double longitudeDegreesForMeters(double meters, double atLatitude) {
+        double cos = Math.cos(Math.toRadians(atLatitude));
+        if (cos < 0.01) {
+            return 360.0;
+        }
+        return meters / (METERS_PER_DEGREE_LATITUDE * cos);
+    }
+
+    public static double latitudeDegreesForMeters(double meters) {
+        return meters / METERS_PER_DEGREE_LATITUDE;
+    }
+
+    /**
+     * Parses a "lat,lng;lat,lng;..." polygon into {latitudes, longitudes}. A closing vertex equal to
+     * the first one is dropped. Returns null when the value is malformed or has fewer than 3 vertices.
+     */
+    public static double[][] parsePolygon(String polygon) {
+        if (polygon == null || polygon.trim().isEmpty()) {
+            return null;
+        }
+        String[] vertices = polygon.split(";");
+        double[] latitudes = new double[vertices.length];
+        double[] longitudes = new double[vertices.length];
+        int count = 0;
+        for (String vertex : vertices) {
+            double[] coordinates = parseCoordinates(vertex);
+            if (coordinates == null) {
+                return null;
+            }
+            latitudes[count] = coordinates[0];
+            longitudes[count] = coordinates[1];
+            count++;
+        }
+        if (count > 1 && latitudes[0] == latitudes[count - 1] && longitudes[0] == longitudes[count - 1]) {
+            count--;
+        }
+        if (count < 3) {
+            return null;
+        }
+        return new double[][]{Arrays.copyOf(latitudes, count), Arrays.copyOf(longitudes, count)};
+    }
+
+    /**
+     * Even-odd ray casting test. Points exactly on an edge may fall on either side.
+     */
+    public static boolean isPointInPolygon(double latitude, double longitude, double[] latitudes, double[] longitudes) {
+        boolean inside = false;
+        for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+            if ((latitudes[i] > latitude) != (latitudes[j] > latitude)
+                    && longitude < (longitudes[j] - longitudes[i]) * (latitude - latitudes[i]) / (latitudes[j] - latitudes[i]) + longitudes[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class AvailabilityStoreTest {
+
+    private static final int THREADS = 16;
+
+    private JdbcTemplate jdbcTemplate;
+    private final List<Integer> notified = Collections.synchronizedList(new ArrayList<>());
+    private AvailabilityStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        AvailabilityChangeListener recorder = (parkingLotId, spotsAvailable) -> notified.add(spotsAvailable);
+        store = new AvailabilityStore(mock(ParkingLotRepository.class), jdbcTemplate, List.of(recorder));
+        ReflectionTestUtils.setField(store, "writeBehindEnabled", true);
+    }
+
+    @Test
+    void parallelIncrementsAndDecrementsGiveTheExactCount() throws Exception {
+        ParkingLot lot = lot(100_000, 50_000);
+        int increments = 6_000;
+        int decrements = 4_000;
+
+        runConcurrently(increments + decrements, i -> {
+            if (i < increments) {
+                store.increment(lot);
+            } else {
+                store.decrement(lot);
+            }
+        });
+
+        assertThat(store.getSpotsAvailable(lot)).isEqualTo(50_000 + increments - decrements);
+        assertThat(notified).hasSize(increments + decrements);
+    }
+
+    @Test
+    void everyCallerSeesItsOwnTransition() throws Exception {
+        ParkingLot lot = lot(100_000, 0);
+        int increments = 10_000;
+        Set<Integer> returned = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(increments, i -> returned.add(store.increment(lot)));
+
+        // Each increment moved the count by one, so each result is distinct and they cover 1..n
+        Set<Integer> expected = new HashSet<>();
+        IntStream.rangeClosed(1, increments).forEach(expected::add);
+        assertThat(returned).isEqualTo(expected);
+        assertThat(new HashSet<>(notified)).isEqualTo(expected);
+    }
+
+    @Test
+    void listenersSeeTheCountsInTheOrderTheyWereApplied() throws Exception {
+        ParkingLot lot = lot(100_000, 50_000);
+
+        runConcurrently(10_000, i -> {
+            if (i % 3 == 0) {
+                store.decrement(lot);
+            } else {
+                store.increment(lot);
+            }
+        });
+
+        // Every update moved the count by one, so consecutive notifications differ by exactly one
+        assertThat(notified).hasSize(10_000);
+        assertThat(Math.abs(notified.get(0) - 50_000)).isEqualTo(1);
+        for (int i = 1; i < notified.size(); i++) {
+            assertThat(Math.abs(notified.get(i) - notified.get(i - 1)))
+                    .as("notification %d after %d", notified.get(i), notified.get(i - 1))
+                    .isEqualTo(1);
+        }
+        assertThat(notified.get(notified.size() - 1)).isEqualTo(store.getSpotsAvailable(lot));
+    }
+
+    @Test
+    void parallelUpdatesStayClampedToTheLotCapacity() throws Exception {
+        ParkingLot lot = lot(50, 25);
+
+        runConcurrently(5_000, i -> store.decrement(lot));
+        assertThat(store.getSpotsAvailable(lot)).isZero();
+
+        runConcurrently(5_000, i -> store.increment(lot));
+        assertThat(store.getSpotsAvailable(lot)).isEqualTo(50);
+        assertThat(notified).allMatch(value -> value >= 0 && value <= 50);
+    }
+
+    @Test
+    void flushWritesTheFinalCountOfADirtyLot() throws Exception {
+        ParkingLot lot = lot(1_000, 500);
+
+        runConcurrently(2_000, i -> {
+            if (i % 2 == 0) {
+                store.increment(lot);
+            } else {
+                store.decrement(lot);
+            }
+        });
+        store.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.captor();
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertThat(batch.getValue()).singleElement().satisfies(row -> assertThat(row).containsExactly(500, lot.getId()));
+    }
+
+    private interface Update {
+        void apply(int index) throws Exception;
+    }
+
+    // Releases all updates at once from a fixed pool, to maximize contention on the one counter
+    private static void runConcurrently(int count, Update update) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    update.apply(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ParkingLot lot(int totalSpots, int spotsAvailable) {
+        ParkingLot lot = new ParkingLot();
+        lot.setId("lot-1");
+        lot.setTotalSpots(totalSpots);
+        lot.setSpotsAvailable(spotsAvailable);
+        return lot;
+    }
+}
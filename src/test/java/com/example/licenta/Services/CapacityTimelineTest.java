@@ -0,0 +1,109 @@
+package com.example.licenta.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CapacityTimelineTest {
+
+    @Test
+    void overlappingIntervalsStack() {
+        CapacityTimeline timeline = new CapacityTimeline();
+        timeline.add(10, 20);
+        timeline.add(15, 25);
+        timeline.add(18, 19);
+
+        assertThat(timeline.maxOccupancy(0, 10)).isZero();
+        assertThat(timeline.maxOccupancy(0, 11)).isEqualTo(1);
+        assertThat(timeline.maxOccupancy(15, 16)).isEqualTo(2);
+        assertThat(timeline.maxOccupancy(0, 100)).isEqualTo(3);
+        assertThat(timeline.maxOccupancy(19, 100)).isEqualTo(2);
+        assertThat(timeline.maxOccupancy(20, 25)).isEqualTo(1);
+    }
+
+    @Test
+    void adjacentIntervalsDoNotOverlap() {
+        CapacityTimeline timeline = new CapacityTimeline();
+        timeline.add(10, 20);
+        timeline.add(20, 30);
+
+        assertThat(timeline.maxOccupancy(0, 100)).isEqualTo(1);
+        assertThat(timeline.maxOccupancy(19, 21)).isEqualTo(1);
+        // Intervals are half-open, so the end instant itself is free again
+        assertThat(timeline.maxOccupancy(30, 40)).isZero();
+    }
+
+    @Test
+    void equalEndpointsCountEveryInterval() {
+        CapacityTimeline timeline = new CapacityTimeline();
+        timeline.add(10, 20);
+        timeline.add(10, 20);
+        timeline.add(10, 20);
+
+        assertThat(timeline.maxOccupancy(10, 11)).isEqualTo(3);
+        assertThat(timeline.maxOccupancy(0, 10)).isZero();
+        assertThat(timeline.maxOccupancy(20, 21)).isZero();
+        assertThat(timeline.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removingEveryIntervalLeavesAnEmptyTimeline() {
+        CapacityTimeline timeline = new CapacityTimeline();
+        timeline.add(10, 20);
+        timeline.add(15, 25);
+        timeline.add(20, 30);
+        timeline.remove(15, 25);
+
+        assertThat(timeline.maxOccupancy(0, 100)).isEqualTo(1);
+
+        timeline.remove(10, 20);
+        timeline.remove(20, 30);
+
+        assertThat(timeline.maxOccupancy(0, 100)).isZero();
+        assertThat(timeline.size()).isZero();
+    }
+
+    @Test
+    void randomAddsAndRemovesMatchABruteForceCount() {
+        Random random = new Random(42);
+        CapacityTimeline timeline = new CapacityTimeline();
+        List<long[]> intervals = new ArrayList<>();
+
+        for (int step = 0; step < 2_000; step++) {
+            if (!intervals.isEmpty() && random.nextInt(3) == 0) {
+                long[] removed = intervals.remove(random.nextInt(intervals.size()));
+                timeline.remove(removed[0], removed[1]);
+            } else {
+                long start = random.nextInt(200);
+                long[] added = {start, start + 1 + random.nextInt(40)};
+                intervals.add(added);
+                timeline.add(added[0], added[1]);
+            }
+
+            long windowStart = random.nextInt(250);
+            long windowEnd = windowStart + 1 + random.nextInt(60);
+            assertThat(timeline.maxOccupancy(windowStart, windowEnd))
+                    .as("window [%d, %d) after step %d", windowStart, windowEnd, step)
+                    .isEqualTo(bruteForceMax(intervals, windowStart, windowEnd));
+            assertThat(timeline.size()).isEqualTo(intervals.size());
+        }
+    }
+
+    private static int bruteForceMax(List<long[]> intervals, long start, long end) {
+        int max = 0;
+        for (long instant = start; instant < end; instant++) {
+            int occupancy = 0;
+            for (long[] interval : intervals) {
+                if (interval[0] <= instant && instant < interval[1]) {
+                    occupancy++;
+                }
+            }
+            max = Math.max(max, occupancy);
+        }
+        return max;
+    }
+}
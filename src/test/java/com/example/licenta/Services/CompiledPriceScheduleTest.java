@@ -0,0 +1,196 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.ParkingLot.DayOfWeek;
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Models.PriceInterval;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class CompiledPriceScheduleTest {
+
+    private static final OffsetDateTime MONDAY_NINE = OffsetDateTime.of(2025, 3, 10, 9, 0, 0, 0, ZoneOffset.ofHours(2));
+
+    @Test
+    void pricesProRataAndPerStartedDurationUnit() {
+        ParkingLot lot = lot(
+                interval("08:00", "18:00", 6.0, null, DayOfWeek.values()),
+                interval("18:00", "08:00", 2.0, 30, DayOfWeek.values()));
+        CompiledPriceSchedule schedule = CompiledPriceSchedule.compile(lot);
+
+        assertThat(schedule.priceFor(MONDAY_NINE, MONDAY_NINE.plusMinutes(90))).isCloseTo(9.0, within(1e-9));
+        // 17:00-18:00 pro rata, then 18:00-18:45 in two started 30 minute units
+        assertThat(schedule.priceFor(MONDAY_NINE.plusHours(8), MONDAY_NINE.plusHours(9).plusMinutes(45)))
+                .isCloseTo(6.0 + 2 * 2.0, within(1e-9));
+    }
+
+    @Test
+    void freeTimeIsNotBilled() {
+        ParkingLot lot = lot(interval("00:00", "23:59", 6.0, null, DayOfWeek.values()));
+        lot.setHasFreeTime(true);
+        lot.setFreeTimeMinutes(30);
+        CompiledPriceSchedule schedule = CompiledPriceSchedule.compile(lot);
+
+        assertThat(schedule.priceFor(MONDAY_NINE, MONDAY_NINE.plusMinutes(20))).isZero();
+        assertThat(schedule.priceFor(MONDAY_NINE, MONDAY_NINE.plusMinutes(90))).isCloseTo(6.0, within(1e-9));
+    }
+
+    @Test
+    void uncoveredTimeIsAnError() {
+        ParkingLot lot = lot(interval("08:00", "18:00", 6.0, null, DayOfWeek.MONDAY));
+        CompiledPriceSchedule schedule = CompiledPriceSchedule.compile(lot);
+
+        assertThatThrownBy(() -> schedule.priceFor(MONDAY_NINE, MONDAY_NINE.plusHours(10)))
+                .isInstanceOf(InvalidDataException.class)
+                .hasMessageContaining("No price interval found");
+    }
+
+    @Test
+    void matchesThePerStepLoopOnRandomSchedules() {
+        Random random = new Random(2025);
+        int compared = 0;
+        for (int lotIndex = 0; lotIndex < 300; lotIndex++) {
+            ParkingLot lot = randomLot(random);
+            CompiledPriceSchedule schedule = CompiledPriceSchedule.compile(lot);
+            for (int period = 0; period < 40; period++) {
+                ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(49) - 24) * 30 * 60);
+                OffsetDateTime start = MONDAY_NINE.withOffsetSameInstant(offset)
+                        .plusMinutes(random.nextInt(14 * 24 * 60))
+                        .plusSeconds(random.nextInt(60));
+                OffsetDateTime end = start.plusMinutes(random.nextInt(random.nextBoolean() ? 6 * 60 : 4 * 24 * 60))
+                        .plusSeconds(random.nextInt(60));
+
+                Double expected;
+                try {
+                    expected = loopPrice(lot, start, end);
+                } catch (InvalidDataException e) {
+                    expected = null;
+                }
+                if (expected == null) {
+                    assertThatThrownBy(() -> schedule.priceFor(start, end))
+                            .as("lot %d from %s to %s", lotIndex, start, end)
+                            .isInstanceOf(InvalidDataException.class);
+                } else {
+                    assertThat(schedule.priceFor(start, end))
+                            .as("lot %d from %s to %s", lotIndex, start, end)
+                            .isCloseTo(expected, within(1e-6));
+                    compared++;
+                }
+            }
+        }
+        assertThat(compared).isGreaterThan(1_000);
+    }
+
+    private static ParkingLot randomLot(Random random) {
+        List<PriceInterval> intervals = new ArrayList<>();
+        if (random.nextInt(4) > 0) {
+            // Two intervals covering the whole week, so most periods price; extra intervals put in front override them
+            intervals.add(interval("06:00", "18:00", 1.0 + random.nextInt(5), null, DayOfWeek.values()));
+            intervals.add(interval("18:00", "06:00", 1.0 + random.nextInt(5), random.nextBoolean() ? 15 : null, DayOfWeek.values()));
+        }
+        int extra = 1 + random.nextInt(5);
+        for (int i = 0; i < extra; i++) {
+            List<DayOfWeek> days = new ArrayList<>();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (random.nextInt(3) > 0) {
+                    days.add(day);
+                }
+            }
+            PriceInterval interval = interval(time(random), time(random), 0.5 + random.nextInt(20) / 2.0,
+                    random.nextBoolean() ? 5 + random.nextInt(60) : null, days.toArray(new DayOfWeek[0]));
+            intervals.add(random.nextBoolean() ? 0 : intervals.size(), interval);
+        }
+        ParkingLot lot = lot(intervals.toArray(new PriceInterval[0]));
+        if (random.nextInt(3) == 0) {
+            lot.setHasFreeTime(true);
+            lot.setFreeTimeMinutes(random.nextInt(120));
+        }
+        return lot;
+    }
+
+    private static String time(Random random) {
+        return String.format("%02d:%02d", random.nextInt(24), random.nextInt(4) * 15 + (random.nextInt(5) == 0 ? 7 : 0));
+    }
+
+    private static PriceInterval interval(String start, String end, double price, Integer duration, DayOfWeek... days) {
+        PriceInterval interval = new PriceInterval();
+        interval.setStartTime(start);
+        interval.setEndTime(end);
+        interval.setPrice(price);
+        interval.setDuration(duration);
+        interval.setDays(new ArrayList<>(List.of(days)));
+        return interval;
+    }
+
+    private static ParkingLot lot(PriceInterval... intervals) {
+        ParkingLot lot = new ParkingLot();
+        lot.setId("lot-1");
+        lot.setPriceIntervals(new ArrayList<>(List.of(intervals)));
+        return lot;
+    }
+
+    // The per-step loop ReservationService priced with before schedules were compiled, kept as the reference
+    private static double loopPrice(ParkingLot parkingLot, OffsetDateTime startTime, OffsetDateTime endTime) {
+        OffsetDateTime billableStartTime = startTime;
+        if (parkingLot.isHasFreeTime() && parkingLot.getFreeTimeMinutes() != null && parkingLot.getFreeTimeMinutes() > 0) {
+            billableStartTime = startTime.plusMinutes(parkingLot.getFreeTimeMinutes());
+            if (billableStartTime.isAfter(endTime) || billableStartTime.isEqual(endTime)) {
+                return 0.0;
+            }
+        }
+
+        double totalPrice = 0.0;
+        OffsetDateTime currentTime = billableStartTime;
+        while (currentTime.isBefore(endTime)) {
+            DayOfWeek currentDay = DayOfWeek.values()[currentTime.getDayOfWeek().getValue() - 1];
+            PriceInterval applicableInterval = null;
+            int current = currentTime.getHour() * 60 + currentTime.getMinute();
+            for (PriceInterval interval : parkingLot.getPriceIntervals()) {
+                int start = minutes(interval.getStartTime());
+                int end = minutes(interval.getEndTime());
+                boolean within = end < start ? current >= start || current < end : current >= start && current < end;
+                if (interval.getDays().contains(currentDay) && within) {
+                    applicableInterval = interval;
+                    break;
+                }
+            }
+            if (applicableInterval == null) {
+                throw new InvalidDataException("No price interval found for the given time and day");
+            }
+
+            int intervalEndMinutes = minutes(applicableInterval.getEndTime());
+            OffsetDateTime intervalEndTime = currentTime.withHour(intervalEndMinutes / 60).withMinute(intervalEndMinutes % 60)
+                    .withSecond(0).withNano(0);
+            if (!intervalEndTime.isAfter(currentTime)) {
+                intervalEndTime = intervalEndTime.plusDays(1);
+            }
+            if (!intervalEndTime.isBefore(endTime)) {
+                intervalEndTime = endTime;
+            }
+            long intervalMinutes = Duration.between(currentTime, intervalEndTime).toMinutes();
+
+            if (applicableInterval.getDuration() != null && applicableInterval.getDuration() > 0) {
+                totalPrice += Math.ceil((double) intervalMinutes / applicableInterval.getDuration()) * applicableInterval.getPrice();
+            } else {
+                totalPrice += (intervalMinutes / 60.0) * applicableInterval.getPrice();
+            }
+            currentTime = intervalEndTime;
+        }
+        return totalPrice;
+    }
+
+    private static int minutes(String time) {
+        String[] parts = time.split(":");
+        return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
+    }
+}
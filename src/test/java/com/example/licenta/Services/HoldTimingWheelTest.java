@@ -0,0 +1,124 @@
+package com.example.licenta.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HoldTimingWheelTest {
+
+    private static final long TICK_MS = 1_000;
+
+    @Test
+    void keyExpiresOnTheFirstAdvanceAtOrAfterItsDeadline() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK_MS, 8, 0);
+        wheel.schedule("a", 5_000);
+
+        assertThat(wheel.advance(4_999)).isEmpty();
+        assertThat(wheel.advance(5_000)).containsExactly("a");
+        assertThat(wheel.advance(6_000)).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlineBetweenTicksIsRoundedUp() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK_MS, 8, 0);
+        wheel.schedule("a", 2_500);
+
+        assertThat(wheel.advance(2_999)).isEmpty();
+        assertThat(wheel.advance(3_000)).containsExactly("a");
+    }
+
+    @Test
+    void deadlinesBeyondOneTurnWaitForTheirOwnTick() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK_MS, 4, 0);
+        // Same bucket as tick 2, two turns later
+        wheel.schedule("far", 10_000);
+
+        for (long now = 0; now < 10_000; now += TICK_MS) {
+            assertThat(wheel.advance(now)).as("advance to %d", now).isEmpty();
+        }
+        assertThat(wheel.advance(10_000)).containsExactly("far");
+    }
+
+    @Test
+    void longPauseExpiresEverythingDueOnce() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK_MS, 4, 0);
+        wheel.schedule("a", 1_000);
+        wheel.schedule("b", 3_000);
+        wheel.schedule("c", 9_000);
+        wheel.schedule("d", 60_000);
+
+        assertThat(wheel.advance(20_000)).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(wheel.advance(59_000)).isEmpty();
+        assertThat(wheel.advance(60_000)).containsExactly("d");
+    }
+
+    @Test
+    void rescheduleReplacesTheEarlierDeadline() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK_MS, 8, 0);
+        wheel.schedule("a", 2_000);
+        wheel.schedule("a", 6_000);
+
+        assertThat(wheel.advance(5_000)).isEmpty();
+        assertThat(wheel.advance(6_000)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledKeyNeverExpires() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK_MS, 8, 0);
+        wheel.schedule("a", 2_000);
+
+        assertThat(wheel.cancel("a")).isTrue();
+        assertThat(wheel.cancel("a")).isFalse();
+        assertThat(wheel.advance(10_000)).isEmpty();
+    }
+
+    @Test
+    void pastDeadlineExpiresOnTheNextAdvance() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK_MS, 8, 0);
+        wheel.advance(5_000);
+        wheel.schedule("late", 1_000);
+
+        assertThat(wheel.advance(5_500)).containsExactly("late");
+    }
+
+    @Test
+    void randomSchedulesExpireExactlyOnceAndNeverEarly() {
+        Random random = new Random(7);
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK_MS, 16, 0);
+        Map<String, Long> deadlines = new HashMap<>();
+        List<String> expired = new ArrayList<>();
+
+        long now = 0;
+        for (int step = 0; step < 5_000; step++) {
+            String key = "hold-" + random.nextInt(500);
+            int action = random.nextInt(4);
+            if (action == 0 && deadlines.remove(key) != null) {
+                wheel.cancel(key);
+            } else if (action <= 2) {
+                long deadline = now + random.nextInt(60_000);
+                deadlines.put(key, deadline);
+                wheel.schedule(key, deadline);
+            } else {
+                now += random.nextInt(5_000);
+                for (String due : wheel.advance(now)) {
+                    assertThat(deadlines.get(due)).as("deadline of %s", due).isNotNull().isLessThanOrEqualTo(now);
+                    deadlines.remove(due);
+                    expired.add(due);
+                }
+                // Everything due at least one tick ago has been handed out
+                long settled = now - TICK_MS;
+                assertThat(deadlines.values()).allMatch(deadline -> deadline > settled);
+            }
+            assertThat(wheel.size()).isEqualTo(deadlines.size());
+        }
+        assertThat(expired).isNotEmpty();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.Reservation.ReservationStatus;
+import com.example.licenta.Enum.Reservation.ReservationType;
+import com.example.licenta.Exceptions.InvalidDataException;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Models.Reservation;
+import com.example.licenta.Repositories.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ReservationCapacityCalendarTest {
+
+    private static final OffsetDateTime NINE = OffsetDateTime.of(2030, 5, 6, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private ReservationCapacityCalendar calendar;
+    private ParkingLot lot;
+    private int nextId;
+
+    @BeforeEach
+    void setUp() {
+        calendar = new ReservationCapacityCalendar(mock(ReservationRepository.class));
+        lot = new ParkingLot();
+        lot.setId("lot-1");
+        lot.setTotalSpots(2);
+    }
+
+    @Test
+    void rejectsABookingOnceTheLotIsFull() {
+        calendar.reserve(reservation(0, 2));
+        calendar.reserve(reservation(1, 3));
+
+        assertThatThrownBy(() -> calendar.reserve(reservation(1, 2)))
+                .isInstanceOf(InvalidDataException.class)
+                .hasMessageContaining("fully booked");
+        assertThat(peak(0, 4)).isEqualTo(2);
+    }
+
+    @Test
+    void acceptsBookingsThatOnlyTouchAFullPeriod() {
+        calendar.reserve(reservation(0, 2));
+        calendar.reserve(reservation(0, 2));
+
+        calendar.reserve(reservation(2, 4));
+
+        assertThat(peak(0, 4)).isEqualTo(2);
+    }
+
+    @Test
+    void releasingAReservationFreesItsSpot() {
+        Reservation first = reservation(0, 2);
+        calendar.reserve(first);
+        calendar.reserve(reservation(0, 2));
+
+        calendar.release(first);
+        calendar.reserve(reservation(1, 2));
+
+        assertThat(peak(0, 2)).isEqualTo(2);
+    }
+
+    @Test
+    void reservingTheSamePeriodAgainIsNotCountedTwice() {
+        Reservation reservation = reservation(0, 2);
+        calendar.reserve(reservation);
+        calendar.reserve(reservation(0, 2));
+
+        calendar.reserve(reservation);
+
+        assertThat(peak(0, 2)).isEqualTo(2);
+    }
+
+    @Test
+    void extensionIsRejectedWhenTheAddedTimeIsFull() {
+        Reservation reservation = reservation(0, 2);
+        calendar.reserve(reservation);
+        calendar.reserve(reservation(2, 4));
+        calendar.reserve(reservation(3, 4));
+
+        assertThatThrownBy(() -> calendar.reserveExtension(reservation, NINE.plusHours(4)))
+                .isInstanceOf(InvalidDataException.class);
+        assertThat(peak(0, 2)).isEqualTo(1);
+        assertThat(peak(2, 3)).isEqualTo(1);
+    }
+
+    @Test
+    void extensionDoesNotCountTheReservationsOwnPeriod() {
+        lot.setTotalSpots(1);
+        Reservation reservation = reservation(0, 2);
+        calendar.reserve(reservation);
+
+        calendar.reserveExtension(reservation, NINE.plusHours(3));
+
+        assertThat(peak(0, 3)).isEqualTo(1);
+        assertThatThrownBy(() -> calendar.reserve(reservation(2, 3)))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    void onlyScheduledHoldingReservationsTakeASpot() {
+        Reservation payForUsage = reservation(0, 2);
+        payForUsage.setReservationType(ReservationType.PAY_FOR_USAGE);
+        Reservation cancelled = reservation(0, 2);
+        cancelled.setStatus(ReservationStatus.CANCELLED);
+
+        calendar.reserve(payForUsage);
+        calendar.reserve(cancelled);
+
+        assertThat(peak(0, 2)).isZero();
+    }
+
+    private Reservation reservation(int startHour, int endHour) {
+        Reservation reservation = new Reservation();
+        reservation.setId("reservation-" + nextId++);
+        reservation.setParkingLot(lot);
+        reservation.setReservationType(ReservationType.STANDARD);
+        reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+        reservation.setStartTime(NINE.plusHours(startHour));
+        reservation.setEndTime(NINE.plusHours(endHour));
+        return reservation;
+    }
+
+    private int peak(int startHour, int endHour) {
+        return calendar.getPeakOccupancy(lot.getId(), NINE.plusHours(startHour), NINE.plusHours(endHour));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.licenta.Services;
+
+import com.example.licenta.Enum.ParkingLot.DayOfWeek;
+import com.example.licenta.Enum.ParkingLot.PricingType;
+import com.example.licenta.Mappers.ReservationMapper;
+import com.example.licenta.Models.ParkingLot;
+import com.example.licenta.Models.PriceInterval;
+import com.example.licenta.Repositories.GuestAccessTokenRepository;
+import com.example.licenta.Repositories.ParkingLotRepository;
+import com.example.licenta.Repositories.ReservationRepository;
+import com.example.licenta.Repositories.ReviewRepository;
+import com.example.licenta.Repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationServiceQuoteTest {
+
+    private static final OffsetDateTime MONDAY_TEN = OffsetDateTime.of(2030, 5, 6, 10, 0, 0, 0, ZoneOffset.ofHours(3));
+
+    private final ParkingLotRepository parkingLotRepository = mock(ParkingLotRepository.class);
+    private final PricingStrategy dynamicPricingStrategy = mock(PricingStrategy.class);
+    private ReservationService service;
+    private ParkingLot lot;
+
+    @BeforeEach
+    void setUp() {
+        QuoteCache quoteCache = new QuoteCache();
+        ReflectionTestUtils.setField(quoteCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(quoteCache, "ttlMs", 60_000L);
+        when(dynamicPricingStrategy.getName()).thenReturn("rules");
+        PricingStrategy fixedPricingStrategy = new FixedPricingStrategy(new PriceScheduleCache(parkingLotRepository));
+
+        service = new ReservationService(mock(ReservationRepository.class), parkingLotRepository, mock(UserRepository.class),
+                mock(ReservationMapper.class), mock(EmailService.class), mock(ReviewRepository.class),
+                mock(GuestAccessTokenRepository.class), mock(StripeService.class), mock(ReservationCapacityCalendar.class),
+                mock(SpotHoldService.class), mock(PriceScheduleCache.class), quoteCache,
+                List.of(fixedPricingStrategy, dynamicPricingStrategy), "fixed", "rules");
+        ReflectionTestUtils.setField(service, "dynamicQuoteUnitMinutes", 15);
+
+        lot = new ParkingLot();
+        lot.setId("lot-1");
+        lot.setTotalSpots(10);
+        lot.setPricingType(PricingType.FIXED);
+        PriceInterval hourly = new PriceInterval();
+        hourly.setStartTime("00:00");
+        hourly.setEndTime("23:59");
+        hourly.setPrice(5.0);
+        hourly.setDuration(60);
+        hourly.setDays(new ArrayList<>(List.of(DayOfWeek.values())));
+        lot.setPriceIntervals(new ArrayList<>(List.of(hourly)));
+        when(parkingLotRepository.findById("lot-1")).thenReturn(Optional.of(lot));
+    }
+
+    @Test
+    void fixedLotsAreQuotedForTheExactStay() {
+        OffsetDateTime start = MONDAY_TEN.plusSeconds(30);
+
+        // One hour starting mid-minute is one started unit, not the 61 minutes around it
+        assertThat(service.quotePrice("lot-1", start, start.plusHours(1))).isCloseTo(5.0, within(1e-9));
+        assertThat(service.quotePrice("lot-1", start, start.plusHours(1).plusSeconds(50))).isCloseTo(5.0, within(1e-9));
+        assertThat(service.quotePrice("lot-1", start, start.plusHours(1).plusMinutes(1))).isCloseTo(10.0, within(1e-9));
+    }
+
+    @Test
+    void dynamicLotsAreQuotedForEveryBlockTheStayTouches() {
+        lot.setPricingType(PricingType.DYNAMIC);
+        when(dynamicPricingStrategy.calculatePrice(eq(lot), any(), any())).thenReturn(12.0);
+
+        Double first = service.quotePrice("lot-1", MONDAY_TEN.plusMinutes(7).plusSeconds(20), MONDAY_TEN.plusMinutes(112).plusSeconds(10));
+        // Another slider position within the same blocks shares the quote
+        Double second = service.quotePrice("lot-1", MONDAY_TEN.plusMinutes(14).plusSeconds(59), MONDAY_TEN.plusMinutes(106));
+
+        assertThat(first).isEqualTo(12.0);
+        assertThat(second).isEqualTo(12.0);
+        verify(dynamicPricingStrategy, times(1)).calculatePrice(lot, MONDAY_TEN, MONDAY_TEN.plusHours(2));
+    }
+}